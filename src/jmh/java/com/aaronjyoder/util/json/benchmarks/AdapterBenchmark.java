@@ -0,0 +1,64 @@
+package com.aaronjyoder.util.json.benchmarks;
+
+import com.aaronjyoder.util.json.JsonBackend;
+import com.aaronjyoder.util.json.benchmarks.Models.Sample;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A thousand objects made only of types handled by {@code InstantAdapter}, {@code UUIDAdapter}, {@code PointAdapter} and {@code ColorAdapter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdapterBenchmark {
+
+  private static final Type TYPE = new TypeToken<List<Sample>>() {
+  }.getType();
+
+  @Param({"GSON", "MOSHI", "JACKSON", "SMILE"})
+  public JsonBackend backend;
+
+  private List<Sample> samples;
+  private Fixture fixture;
+
+  @Setup
+  public void setUp() throws IOException {
+    samples = Models.samples(1_000);
+    fixture = Fixture.create(backend, TYPE, samples);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    fixture.delete();
+  }
+
+  @Benchmark
+  public List<Sample> read() throws IOException {
+    return backend.read(fixture.readPath, TYPE);
+  }
+
+  @Benchmark
+  public void write() throws IOException {
+    backend.write(fixture.writePath, TYPE, samples);
+  }
+
+}
@@ -0,0 +1,62 @@
+package com.aaronjyoder.util.json.benchmarks;
+
+import com.aaronjyoder.util.json.JsonBackend;
+import com.aaronjyoder.util.json.benchmarks.Models.Document;
+import com.aaronjyoder.util.json.benchmarks.Models.Size;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Plain objects of increasing size: a single item (well under 1 KB), a thousand items (about 150 KB) and fifty thousand items (about 8 MB).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentBenchmark {
+
+  @Param({"GSON", "MOSHI", "JACKSON", "SMILE"})
+  public JsonBackend backend;
+
+  @Param({"SMALL", "MEDIUM", "HUGE"})
+  public Size size;
+
+  private Document document;
+  private Fixture fixture;
+
+  @Setup
+  public void setUp() throws IOException {
+    document = Models.document(size);
+    fixture = Fixture.create(backend, Document.class, document);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    fixture.delete();
+  }
+
+  @Benchmark
+  public Document read() throws IOException {
+    return backend.read(fixture.readPath, Document.class);
+  }
+
+  @Benchmark
+  public void write() throws IOException {
+    backend.write(fixture.writePath, Document.class, document);
+  }
+
+}
@@ -0,0 +1,45 @@
+package com.aaronjyoder.util.json.benchmarks;
+
+import com.aaronjyoder.util.json.JsonBackend;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * A scratch directory holding one file to read, written up front by the backend under test, and one file that write benchmarks overwrite on every call.
+ */
+final class Fixture {
+
+  final Path readPath;
+  final Path writePath;
+  private final Path directory;
+
+  private Fixture(Path directory, String extension) {
+    this.directory = directory;
+    this.readPath = directory.resolve("read" + extension);
+    this.writePath = directory.resolve("write" + extension);
+  }
+
+  static Fixture create(JsonBackend backend, Type type, Object value) throws IOException {
+    Fixture fixture = new Fixture(Files.createTempDirectory("json-utilities-jmh"), backend == JsonBackend.SMILE ? ".sml" : ".json");
+    backend.write(fixture.readPath, type, value);
+    return fixture;
+  }
+
+  void delete() throws IOException {
+    try (Stream<Path> walk = Files.walk(directory)) {
+      walk.sorted(Comparator.reverseOrder()).forEach(path -> {
+        try {
+          Files.delete(path);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+  }
+
+}
@@ -0,0 +1,151 @@
+package com.aaronjyoder.util.json.benchmarks;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Payloads shared by the benchmarks. Everything is public with public fields and no-arg constructors so that all backends can bind it, and generated from a
+ * fixed seed so that every run serializes the same bytes.
+ */
+public final class Models {
+
+  private static final long SEED = 42;
+
+  private Models() {
+  }
+
+  public enum Size {
+    SMALL(1),
+    MEDIUM(1_000),
+    HUGE(50_000);
+
+    final int items;
+
+    Size(int items) {
+      this.items = items;
+    }
+  }
+
+  public static final class Document {
+
+    public long id;
+    public String name;
+    public List<String> tags = new ArrayList<>();
+    public List<Item> items = new ArrayList<>();
+
+  }
+
+  public static final class Item {
+
+    public int index;
+    public String label;
+    public double weight;
+    public boolean active;
+    public List<Integer> values = new ArrayList<>();
+
+  }
+
+  public record Event(long id, String name, double value, boolean flagged, List<String> tags) {
+
+  }
+
+  public static final class Sample {
+
+    public Instant time;
+    public UUID id;
+    public Point position;
+    public Color color;
+
+  }
+
+  public abstract static class Shape {
+
+    public String name;
+
+  }
+
+  public static final class Circle extends Shape {
+
+    public double radius;
+
+  }
+
+  public static final class Rectangle extends Shape {
+
+    public double width;
+    public double height;
+
+  }
+
+  public static Document document(Size size) {
+    Random random = new Random(SEED);
+    Document document = new Document();
+    document.id = random.nextLong();
+    document.name = "document-" + size.name().toLowerCase();
+    for (int i = 0; i < 8; i++) {
+      document.tags.add("tag-" + i);
+    }
+    for (int i = 0; i < size.items; i++) {
+      Item item = new Item();
+      item.index = i;
+      item.label = "item-" + Integer.toHexString(random.nextInt());
+      item.weight = random.nextDouble() * 1000;
+      item.active = random.nextBoolean();
+      for (int j = 0; j < 8; j++) {
+        item.values.add(random.nextInt(10_000));
+      }
+      document.items.add(item);
+    }
+    return document;
+  }
+
+  public static List<Event> events(int count) {
+    Random random = new Random(SEED);
+    List<Event> events = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      events.add(new Event(i, "event-" + Integer.toHexString(random.nextInt()), random.nextDouble(), random.nextBoolean(), List.of("a", "b", "c")));
+    }
+    return events;
+  }
+
+  public static List<Sample> samples(int count) {
+    Random random = new Random(SEED);
+    List<Sample> samples = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Sample sample = new Sample();
+      sample.time = Instant.ofEpochSecond(1_600_000_000L + random.nextInt(100_000_000), random.nextInt(1_000_000_000));
+      sample.id = new UUID(random.nextLong(), random.nextLong());
+      sample.position = new Point(random.nextInt(4096), random.nextInt(4096));
+      sample.color = new Color(random.nextInt(), true);
+      samples.add(sample);
+    }
+    return samples;
+  }
+
+  public static List<Shape> shapes(int count) {
+    Random random = new Random(SEED);
+    List<Shape> shapes = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Shape shape;
+      if (random.nextBoolean()) {
+        Circle circle = new Circle();
+        circle.radius = random.nextDouble() * 100;
+        shape = circle;
+      } else {
+        Rectangle rectangle = new Rectangle();
+        rectangle.width = random.nextDouble() * 100;
+        rectangle.height = random.nextDouble() * 100;
+        shape = rectangle;
+      }
+      shape.name = "shape-" + i;
+      shapes.add(shape);
+    }
+    return shapes;
+  }
+
+}
@@ -0,0 +1,81 @@
+package com.aaronjyoder.util.json.benchmarks;
+
+import com.aaronjyoder.util.json.JsonBackend;
+import com.aaronjyoder.util.json.adapters.RuntimeTypeAdapterFactory;
+import com.aaronjyoder.util.json.benchmarks.Models.Circle;
+import com.aaronjyoder.util.json.benchmarks.Models.Rectangle;
+import com.aaronjyoder.util.json.benchmarks.Models.Shape;
+import com.aaronjyoder.util.json.gson.GsonUtil;
+import com.aaronjyoder.util.json.jackson.JacksonUtil;
+import com.aaronjyoder.util.json.moshi.MoshiUtil;
+import com.aaronjyoder.util.json.smile.SmileUtil;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A thousand subtypes of an abstract base class, labelled through a {@link RuntimeTypeAdapterFactory} registered with every util.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolymorphicBenchmark {
+
+  private static final Type TYPE = new TypeToken<List<Shape>>() {
+  }.getType();
+
+  static {
+    RuntimeTypeAdapterFactory<Shape> shapes = RuntimeTypeAdapterFactory.of(Shape.class, "type")
+        .with(Circle.class, "circle")
+        .with(Rectangle.class, "rectangle");
+    GsonUtil.register(shapes);
+    MoshiUtil.register(shapes);
+    JacksonUtil.register(shapes);
+    SmileUtil.register(shapes);
+  }
+
+  @Param({"GSON", "MOSHI", "JACKSON", "SMILE"})
+  public JsonBackend backend;
+
+  private List<Shape> shapes;
+  private Fixture fixture;
+
+  @Setup
+  public void setUp() throws IOException {
+    shapes = Models.shapes(1_000);
+    fixture = Fixture.create(backend, TYPE, shapes);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    fixture.delete();
+  }
+
+  @Benchmark
+  public List<Shape> read() throws IOException {
+    return backend.read(fixture.readPath, TYPE);
+  }
+
+  @Benchmark
+  public void write() throws IOException {
+    backend.write(fixture.writePath, TYPE, shapes);
+  }
+
+}
@@ -0,0 +1,64 @@
+package com.aaronjyoder.util.json.benchmarks;
+
+import com.aaronjyoder.util.json.JsonBackend;
+import com.aaronjyoder.util.json.benchmarks.Models.Event;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A thousand records, bound through {@code RecordsJsonAdapterFactory} by Moshi and natively by Jackson. Gson 2.8 cannot bind records, so it is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordBenchmark {
+
+  private static final Type TYPE = new TypeToken<List<Event>>() {
+  }.getType();
+
+  @Param({"MOSHI", "JACKSON", "SMILE"})
+  public JsonBackend backend;
+
+  private List<Event> events;
+  private Fixture fixture;
+
+  @Setup
+  public void setUp() throws IOException {
+    events = Models.events(1_000);
+    fixture = Fixture.create(backend, TYPE, events);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    fixture.delete();
+  }
+
+  @Benchmark
+  public List<Event> read() throws IOException {
+    return backend.read(fixture.readPath, TYPE);
+  }
+
+  @Benchmark
+  public void write() throws IOException {
+    backend.write(fixture.writePath, TYPE, events);
+  }
+
+}
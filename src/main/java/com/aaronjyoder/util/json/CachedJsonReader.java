@@ -0,0 +1,170 @@
+package com.aaronjyoder.util.json;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Read-through cache of deserialized objects per {@code (path, type)} on top of a {@link JsonBackend}. A cached object is returned as long as the file's size
+ * and last-modified time still match what they were when it was read, so a repeated read costs one {@code stat} call instead of a parse. Entries are weighed by
+ * file size and evicted once {@code maximumBytes} is exceeded or after being idle for {@code expireAfterAccess}.
+ * <p>
+ * Cached objects are shared between callers and must be treated as read-only; write changes back through {@link #write(Path, Type, Object)}.
+ */
+public final class CachedJsonReader {
+
+  private static final long DEFAULT_MAXIMUM_BYTES = 64L * 1024 * 1024;
+  private static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofMinutes(10);
+
+  private final JsonBackend backend;
+  private final Cache<Key, Entry> cache;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loadSuccesses = new LongAdder();
+  private final LongAdder loadFailures = new LongAdder();
+  private final LongAdder totalLoadNanos = new LongAdder();
+
+  private CachedJsonReader(JsonBackend backend, long maximumBytes, Duration expireAfterAccess) {
+    if (backend == null || expireAfterAccess == null) {
+      throw new NullPointerException();
+    }
+    this.backend = backend;
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(maximumBytes)
+        .weigher((Key key, Entry entry) -> (int) Math.min(Math.max(entry.size(), 1), Integer.MAX_VALUE))
+        .expireAfterAccess(expireAfterAccess.toNanos(), TimeUnit.NANOSECONDS)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Creates a cache that holds up to 64 MiB of source documents and drops entries that have not been read for ten minutes.
+   */
+  public static CachedJsonReader of(@Nonnull JsonBackend backend) {
+    return new CachedJsonReader(backend, DEFAULT_MAXIMUM_BYTES, DEFAULT_EXPIRE_AFTER_ACCESS);
+  }
+
+  public static CachedJsonReader of(@Nonnull JsonBackend backend, long maximumBytes, @Nonnull Duration expireAfterAccess) {
+    return new CachedJsonReader(backend, maximumBytes, expireAfterAccess);
+  }
+
+  @Nullable
+  public <T> T read(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return read(path, (Type) type);
+  }
+
+  @Nullable
+  public <T> T read(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    Key key = new Key(path.toAbsolutePath().normalize(), type);
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(key.path(), BasicFileAttributes.class);
+    } catch (NoSuchFileException e) {
+      cache.invalidate(key);
+      return null;
+    }
+    if (!attributes.isRegularFile()) {
+      cache.invalidate(key);
+      return null;
+    }
+
+    Entry entry = cache.getIfPresent(key);
+    if (entry != null && entry.matches(attributes)) {
+      hits.increment();
+      @SuppressWarnings("unchecked") // entries are keyed by the type they were read as
+      T value = (T) entry.value();
+      return value;
+    }
+    misses.increment();
+
+    long start = System.nanoTime();
+    T value;
+    try {
+      value = backend.read(key.path(), type);
+    } catch (IOException | RuntimeException e) {
+      loadFailures.increment();
+      cache.invalidate(key);
+      throw e;
+    } finally {
+      totalLoadNanos.add(System.nanoTime() - start);
+    }
+    if (value == null) {
+      loadFailures.increment();
+      cache.invalidate(key);
+      return null;
+    }
+    loadSuccesses.increment();
+    cache.put(key, new Entry(value, attributes.lastModifiedTime(), attributes.size()));
+    return value;
+  }
+
+  public <T> void write(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object) throws IOException {
+    write(path, (Type) type, object);
+  }
+
+  /**
+   * Writes {@code object} through the backend and caches it as the current value of {@code path}.
+   */
+  public <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) throws IOException {
+    Key key = new Key(path.toAbsolutePath().normalize(), type);
+    try {
+      backend.write(key.path(), type, object);
+    } catch (IOException | RuntimeException e) {
+      invalidate(key.path());
+      throw e;
+    }
+    BasicFileAttributes attributes = Files.readAttributes(key.path(), BasicFileAttributes.class);
+    invalidate(key.path());
+    cache.put(key, new Entry(object, attributes.lastModifiedTime(), attributes.size()));
+  }
+
+  /**
+   * Drops every cached object read from {@code path}, whatever type it was read as.
+   */
+  public void invalidate(@Nonnull Path path) {
+    Path normalized = path.toAbsolutePath().normalize();
+    cache.asMap().keySet().removeIf(key -> key.path().equals(normalized));
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * Hit and miss counts reflect file validation (a stale entry counts as a miss); eviction counts come from the underlying cache.
+   */
+  @Nonnull
+  public CacheStats stats() {
+    return new CacheStats(hits.sum(), misses.sum(), loadSuccesses.sum(), loadFailures.sum(), totalLoadNanos.sum(), cache.stats().evictionCount());
+  }
+
+  private record Key(Path path, Type type) {
+
+  }
+
+  private record Entry(Object value, FileTime modified, long size) {
+
+    boolean matches(BasicFileAttributes attributes) {
+      return size == attributes.size() && modified.equals(attributes.lastModifiedTime());
+    }
+
+  }
+
+}
@@ -0,0 +1,41 @@
+package com.aaronjyoder.util.json;
+
+import java.nio.file.Path;
+import javax.annotation.Nonnull;
+
+/**
+ * Compression applied to a file on disk. The document is inflated or deflated while it streams through the parser or serializer, so the uncompressed text is
+ * never held in memory.
+ */
+public enum Compression {
+  /**
+   * Chooses by file name: {@code .gz} is {@link #GZIP}, {@code .deflate} is {@link #DEFLATE}, anything else is {@link #NONE}.
+   */
+  AUTO,
+  NONE,
+  GZIP,
+  /**
+   * zlib-wrapped deflate, as written by {@link java.util.zip.DeflaterOutputStream}.
+   */
+  DEFLATE;
+
+  /**
+   * Resolves {@link #AUTO} against {@code path}; every other constant resolves to itself.
+   */
+  @Nonnull
+  public Compression resolve(@Nonnull Path path) {
+    if (this != AUTO) {
+      return this;
+    }
+    Path fileName = path.getFileName();
+    String name = fileName == null ? "" : fileName.toString();
+    if (name.endsWith(".gz")) {
+      return GZIP;
+    }
+    if (name.endsWith(".deflate")) {
+      return DEFLATE;
+    }
+    return NONE;
+  }
+
+}
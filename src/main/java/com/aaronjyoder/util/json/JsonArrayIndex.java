@@ -0,0 +1,354 @@
+package com.aaronjyoder.util.json;
+
+import com.aaronjyoder.util.json.collections.LongList;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Sidecar index of the elements of a file that holds one top-level JSON array, for the {@code readAt}/{@code readRange} methods of the utils. The index is
+ * stored next to the file as {@code <name>.idx} and records the byte offset of every {@code interval}-th element, so reading element {@code n} seeks straight
+ * to the nearest indexed element before it and parses fewer than {@code interval} elements to get there.
+ * <p>
+ * The utils write the index along with the file when {@link WriteOptions#arrayIndexInterval()} is positive. An index also records the size and last-modified
+ * time of the file it describes; when they no longer match, the next read rebuilds it by scanning the file's bytes for element boundaries, which is much cheaper
+ * than parsing them. Compressed files cannot be entered in the middle, so they get no index and are read from the start.
+ */
+public final class JsonArrayIndex {
+
+  public static final String EXTENSION = ".idx";
+  public static final int DEFAULT_INTERVAL = 16;
+
+  private static final int MAGIC = 0x4A414958; // "JAIX"
+  // magic, interval, file size, file modification time, element count
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8;
+  private static final byte[] OPEN_ARRAY = {'['};
+
+  private JsonArrayIndex() {
+  }
+
+  /**
+   * The file positioned on an element. {@link #in()} reads a JSON array that starts {@link #skip()} elements before the one that was asked for and ends where
+   * the file's array ends.
+   */
+  public record Slice(@Nonnull InputStream in, long skip) implements Closeable {
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+
+  }
+
+  @Nonnull
+  public static Path sidecar(@Nonnull Path path) {
+    return path.resolveSibling(path.getFileName() + EXTENSION);
+  }
+
+  /**
+   * Positions {@code path} on element {@code index}, using the sidecar index and building it first if it is missing or stale. Files that are not a single
+   * top-level array are returned from the start, for the caller's parser to reject.
+   *
+   * @return {@code null} if the file does not exist or the array has no element {@code index}
+   */
+  @Nullable
+  public static Slice seek(@Nonnull Path path, long index) throws IOException {
+    if (index < 0) {
+      throw new IllegalArgumentException("index must not be negative");
+    }
+    if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+      return null;
+    }
+    if (Compression.AUTO.resolve(path) != Compression.NONE) {
+      return new Slice(JsonFiles.newInputStream(path, ReadOptions.DEFAULT), index);
+    }
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    Entry entry = load(path, attributes, index);
+    if (entry == null) {
+      Scanner scanner = rebuild(path, attributes);
+      if (!scanner.isComplete()) {
+        return new Slice(JsonFiles.newInputStream(path, ReadOptions.DEFAULT), index);
+      }
+      entry = scanner.entry(index);
+    }
+    if (index >= entry.count()) {
+      return null;
+    }
+    long offset = entry.offset();
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      channel.position(offset);
+      InputStream elements = new BufferedInputStream(Channels.newInputStream(channel), ReadOptions.DEFAULT_BUFFER_SIZE);
+      return new Slice(new SequenceInputStream(new ByteArrayInputStream(OPEN_ARRAY), elements), index - entry.element());
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the number of elements of the top-level array in {@code path}, from its sidecar index where possible.
+   *
+   * @return {@code -1} if the file does not exist or is not a single top-level array
+   */
+  public static long count(@Nonnull Path path) throws IOException {
+    if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+      return -1;
+    }
+    Scanner scanner;
+    if (Compression.AUTO.resolve(path) != Compression.NONE) {
+      scanner = new Scanner(Integer.MAX_VALUE);
+      try (InputStream in = JsonFiles.newInputStream(path, ReadOptions.DEFAULT)) {
+        scanner.scan(in);
+      }
+    } else {
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      Entry entry = load(path, attributes, 0);
+      if (entry != null) {
+        return entry.count();
+      }
+      scanner = rebuild(path, attributes);
+    }
+    return scanner.isComplete() ? scanner.count : -1;
+  }
+
+  /**
+   * Writes the sidecar index of {@code path} with an entry for every {@code interval}-th element, replacing any existing one.
+   *
+   * @return {@code false}, removing any existing sidecar, if the file is compressed or not a single top-level array
+   */
+  public static boolean build(@Nonnull Path path, int interval) throws IOException {
+    Scanner scanner = new Scanner(interval);
+    if (Compression.AUTO.resolve(path) == Compression.NONE) {
+      try (InputStream in = new BufferedInputStream(Files.newInputStream(path), ReadOptions.DEFAULT_BUFFER_SIZE)) {
+        scanner.scan(in);
+      }
+    }
+    return save(path, scanner);
+  }
+
+  // Writes the sidecar for what scanner saw of the file that was just written to path, and removes a sidecar that would now be stale
+  static boolean save(Path path, Scanner scanner) throws IOException {
+    Path sidecar = sidecar(path);
+    if (!scanner.isComplete()) {
+      Files.deleteIfExists(sidecar);
+      return false;
+    }
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    if (attributes.size() != scanner.position) {
+      Files.deleteIfExists(sidecar);
+      return false;
+    }
+    Path temp = Files.createTempFile(sidecar.toAbsolutePath().getParent(), "." + sidecar.getFileName(), ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(scanner.interval);
+        out.writeLong(attributes.size());
+        out.writeLong(attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+        out.writeLong(scanner.count);
+        for (int i = 0; i < scanner.offsets.size(); i++) {
+          out.writeLong(scanner.offsets.getLong(i));
+        }
+      }
+      Files.move(temp, sidecar, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      return true;
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  // Looks up the indexed element at or before index in the sidecar, if the sidecar still describes the file
+  @Nullable
+  private static Entry load(Path path, BasicFileAttributes attributes, long index) throws IOException {
+    try (FileChannel channel = FileChannel.open(sidecar(path), StandardOpenOption.READ)) {
+      ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+      if (header == null || header.getInt() != MAGIC) {
+        return null;
+      }
+      int interval = header.getInt();
+      if (interval < 1 || header.getLong() != attributes.size() || header.getLong() != attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS)) {
+        return null;
+      }
+      long count = header.getLong();
+      if (index >= count) {
+        return new Entry(count, index, 0);
+      }
+      ByteBuffer offset = readFully(channel, HEADER_SIZE + 8 * (index / interval), 8);
+      return offset == null ? null : new Entry(count, index - index % interval, offset.getLong());
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  // The interval of a stale sidecar is kept when it is rebuilt
+  private static Scanner rebuild(Path path, BasicFileAttributes attributes) throws IOException {
+    int interval = DEFAULT_INTERVAL;
+    try (FileChannel channel = FileChannel.open(sidecar(path), StandardOpenOption.READ)) {
+      ByteBuffer header = readFully(channel, 0, 8);
+      if (header != null && header.getInt() == MAGIC) {
+        interval = Math.max(1, header.getInt());
+      }
+    } catch (NoSuchFileException e) {
+      // Never indexed
+    }
+    Scanner scanner = new Scanner(interval);
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(path), ReadOptions.DEFAULT_BUFFER_SIZE)) {
+      scanner.scan(in);
+    }
+    try {
+      if (scanner.position == attributes.size()) {
+        save(path, scanner);
+      }
+    } catch (IOException e) {
+      // A read-only directory still gets answers, only without a saved index
+    }
+    return scanner;
+  }
+
+  @Nullable
+  private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        return null;
+      }
+    }
+    return buffer.flip();
+  }
+
+  // The element count of the array, and the offset of an indexed element
+  private record Entry(long count, long element, long offset) {
+
+  }
+
+  // Finds the elements of a top-level array in its bytes, without parsing them: it only tracks nesting, strings and escapes
+  static final class Scanner {
+
+    private final int interval;
+    private final LongList offsets = new LongList();
+    private long position;
+    private long count;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private boolean expectElement;
+    private boolean complete;
+    private boolean invalid;
+
+    Scanner(int interval) {
+      if (interval < 1) {
+        throw new IllegalArgumentException("interval must be positive");
+      }
+      this.interval = interval;
+    }
+
+    boolean isComplete() {
+      return complete && !invalid;
+    }
+
+    Entry entry(long index) {
+      return index < count ? new Entry(count, index - index % interval, offsets.getLong((int) (index / interval))) : new Entry(count, index, 0);
+    }
+
+    void scan(InputStream in) throws IOException {
+      byte[] buffer = new byte[ReadOptions.DEFAULT_BUFFER_SIZE];
+      for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+        update(buffer, 0, read);
+      }
+    }
+
+    // Scans the bytes as they are written to out
+    OutputStream wrap(OutputStream out) {
+      return new FilterOutputStream(out) {
+        @Override
+        public void write(int b) throws IOException {
+          out.write(b);
+          if (!invalid) {
+            update((byte) b);
+          }
+        }
+
+        @Override
+        public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+          out.write(b, off, len);
+          update(b, off, len);
+        }
+      };
+    }
+
+    void update(byte[] bytes, int off, int len) {
+      for (int i = off; i < off + len && !invalid; i++) {
+        update(bytes[i]);
+      }
+    }
+
+    private void update(byte b) {
+      long offset = position++;
+      if (inString) {
+        if (escaped) {
+          escaped = false;
+        } else if (b == '\\') {
+          escaped = true;
+        } else if (b == '"') {
+          inString = false;
+        }
+        return;
+      }
+      if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+        return;
+      }
+      if (complete || depth == 0 && b != '[') {
+        // Anything but whitespace around the array
+        invalid = true;
+        return;
+      }
+      if (expectElement && depth == 1 && b != ']') {
+        if (count % interval == 0) {
+          offsets.addLong(offset);
+        }
+        count++;
+        expectElement = false;
+      }
+      switch (b) {
+        case '"':
+          inString = true;
+          break;
+        case '[':
+        case '{':
+          expectElement = ++depth == 1;
+          break;
+        case ']':
+        case '}':
+          complete = --depth == 0;
+          break;
+        case ',':
+          expectElement = depth == 1;
+          break;
+        default:
+          break;
+      }
+    }
+
+  }
+
+}
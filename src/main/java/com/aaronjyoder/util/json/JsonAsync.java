@@ -0,0 +1,84 @@
+package com.aaronjyoder.util.json;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+
+/**
+ * Runs blocking file operations off the caller's thread for the {@code readAsync}/{@code writeAsync} methods of the utils.
+ * <p>
+ * The default executor starts one virtual thread per task when the runtime provides {@code Executors.newVirtualThreadPerTaskExecutor()} (JDK 21+), and falls back
+ * to a cached pool of daemon platform threads otherwise. Use {@link #setExecutor(Executor)} to plug in a different one.
+ */
+public final class JsonAsync {
+
+  private static volatile Executor executor = defaultExecutor();
+
+  private JsonAsync() {
+  }
+
+  @FunctionalInterface
+  public interface IOCallable<T> {
+
+    T call() throws IOException;
+
+  }
+
+  @Nonnull
+  public static Executor executor() {
+    return executor;
+  }
+
+  public static void setExecutor(@Nonnull Executor executor) {
+    if (executor == null) {
+      throw new NullPointerException();
+    }
+    JsonAsync.executor = executor;
+  }
+
+  /**
+   * Runs {@code task} on the configured executor. The returned future completes exceptionally with whatever {@code task} throws, and cancelling it interrupts
+   * the task if it is already running (or keeps it from starting at all).
+   */
+  @Nonnull
+  public static <T> CompletableFuture<T> supply(@Nonnull IOCallable<T> task) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    FutureTask<Void> runner = new FutureTask<>(() -> {
+      try {
+        future.complete(task.call());
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
+      }
+      return null;
+    });
+    future.whenComplete((result, failure) -> {
+      if (future.isCancelled()) {
+        runner.cancel(true);
+      }
+    });
+    executor.execute(runner);
+    return future;
+  }
+
+  private static Executor defaultExecutor() {
+    try {
+      Method virtualThreadExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (Executor) virtualThreadExecutor.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      AtomicInteger count = new AtomicInteger();
+      ThreadFactory threadFactory = runnable -> {
+        Thread thread = new Thread(runnable, "json-io-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      };
+      return Executors.newCachedThreadPool(threadFactory);
+    }
+  }
+
+}
@@ -0,0 +1,174 @@
+package com.aaronjyoder.util.json;
+
+import com.aaronjyoder.util.json.gson.GsonUtil;
+import com.aaronjyoder.util.json.jackson.JacksonUtil;
+import com.aaronjyoder.util.json.moshi.MoshiUtil;
+import com.aaronjyoder.util.json.smile.SmileUtil;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Path;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Selects one of the static utilities so that facades such as {@link JsonWriteQueue} can be written once for every backend.
+ */
+public enum JsonBackend {
+
+  GSON {
+    @Nullable
+    @Override
+    public <T> T read(@Nonnull Path path, @Nonnull Type type, @Nonnull ReadOptions options) throws IOException {
+      return GsonUtil.read(path, type, options);
+    }
+
+    @Override
+    public <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) throws IOException {
+      GsonUtil.write(path, type, object, options);
+    }
+
+    @Nonnull
+    @Override
+    public <T> JsonFiles.Output output(@Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) {
+      return GsonUtil.output(type, object, options);
+    }
+
+    @Nonnull
+    @Override
+    public <T> JsonLines.Encoder lineEncoder(@Nonnull Type type, @Nonnull T object) {
+      return GsonUtil.lineEncoder(type, object);
+    }
+
+    @Nonnull
+    @Override
+    public <T> JsonLines.Decoder<T> lineDecoder(@Nonnull Type type) {
+      return GsonUtil.lineDecoder(type);
+    }
+  },
+
+  MOSHI {
+    @Nullable
+    @Override
+    public <T> T read(@Nonnull Path path, @Nonnull Type type, @Nonnull ReadOptions options) throws IOException {
+      return MoshiUtil.read(path, type, options);
+    }
+
+    @Override
+    public <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) throws IOException {
+      MoshiUtil.write(path, type, object, options);
+    }
+
+    @Nonnull
+    @Override
+    public <T> JsonFiles.Output output(@Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) {
+      return MoshiUtil.output(type, object, options);
+    }
+
+    @Nonnull
+    @Override
+    public <T> JsonLines.Encoder lineEncoder(@Nonnull Type type, @Nonnull T object) {
+      return MoshiUtil.lineEncoder(type, object);
+    }
+
+    @Nonnull
+    @Override
+    public <T> JsonLines.Decoder<T> lineDecoder(@Nonnull Type type) {
+      return MoshiUtil.lineDecoder(type);
+    }
+  },
+
+  JACKSON {
+    @Nullable
+    @Override
+    public <T> T read(@Nonnull Path path, @Nonnull Type type, @Nonnull ReadOptions options) throws IOException {
+      return JacksonUtil.read(path, type, options);
+    }
+
+    @Override
+    public <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) throws IOException {
+      JacksonUtil.write(path, type, object, options);
+    }
+
+    @Nonnull
+    @Override
+    public <T> JsonFiles.Output output(@Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) {
+      return JacksonUtil.output(type, object, options);
+    }
+
+    @Nonnull
+    @Override
+    public <T> JsonLines.Encoder lineEncoder(@Nonnull Type type, @Nonnull T object) {
+      return JacksonUtil.lineEncoder(type, object);
+    }
+
+    @Nonnull
+    @Override
+    public <T> JsonLines.Decoder<T> lineDecoder(@Nonnull Type type) {
+      return JacksonUtil.lineDecoder(type);
+    }
+  },
+
+  /**
+   * Jackson's binary Smile format, through {@link SmileUtil}. Being binary, it has no JSON Lines form.
+   */
+  SMILE {
+    @Nullable
+    @Override
+    public <T> T read(@Nonnull Path path, @Nonnull Type type, @Nonnull ReadOptions options) throws IOException {
+      return SmileUtil.read(path, type, options);
+    }
+
+    @Override
+    public <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) throws IOException {
+      SmileUtil.write(path, type, object, options);
+    }
+
+    @Nonnull
+    @Override
+    public <T> JsonFiles.Output output(@Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) {
+      return SmileUtil.output(type, object, options);
+    }
+  };
+
+  @Nullable
+  public <T> T read(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return read(path, type, ReadOptions.DEFAULT);
+  }
+
+  @Nullable
+  public abstract <T> T read(@Nonnull Path path, @Nonnull Type type, @Nonnull ReadOptions options) throws IOException;
+
+  public <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) throws IOException {
+    write(path, type, object, WriteOptions.DEFAULT);
+  }
+
+  public abstract <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) throws IOException;
+
+  /**
+   * Serializes {@code object} as one whole document into a stream the caller opened, so that failures of the stream can be told apart from failures to
+   * serialize. Compression, fsync and the array index in {@code options} are up to whoever opened the stream.
+   */
+  @Nonnull
+  public abstract <T> JsonFiles.Output output(@Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options);
+
+  /**
+   * Encodes {@code object} as one compact line for {@link JsonLines} and {@link JsonStore}.
+   *
+   * @throws UnsupportedOperationException for {@link #SMILE}
+   */
+  @Nonnull
+  public <T> JsonLines.Encoder lineEncoder(@Nonnull Type type, @Nonnull T object) {
+    throw new UnsupportedOperationException(name() + " has no JSON Lines form");
+  }
+
+  /**
+   * Decodes consecutive lines written by {@link #lineEncoder(Type, Object)}.
+   *
+   * @throws UnsupportedOperationException for {@link #SMILE}
+   */
+  @Nonnull
+  public <T> JsonLines.Decoder<T> lineDecoder(@Nonnull Type type) {
+    throw new UnsupportedOperationException(name() + " has no JSON Lines form");
+  }
+
+}
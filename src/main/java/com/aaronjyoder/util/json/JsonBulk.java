@@ -0,0 +1,133 @@
+package com.aaronjyoder.util.json;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Type;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+
+/**
+ * Reads or writes many files in parallel on {@link JsonAsync#executor()}, with at most {@code parallelism} files open at once. A file that fails is reported in
+ * {@link Result#failures()} and does not abort the rest of the batch.
+ */
+public final class JsonBulk {
+
+  public static final int DEFAULT_PARALLELISM = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+  private JsonBulk() {
+  }
+
+  /**
+   * Outcome of a bulk operation, in the order the files were visited.
+   */
+  public record Result<T>(Map<Path, T> values, Map<Path, Exception> failures) {
+
+    public boolean isSuccess() {
+      return failures.isEmpty();
+    }
+
+  }
+
+  /**
+   * Reads every regular file below {@code directory} whose path relative to {@code directory} matches {@code glob} (for example {@code "*.json"} or {@code
+   * "**.json"}). A file that disappears before it is read fails with {@link NoSuchFileException}, and one that is empty or holds {@code null} fails with an
+   * {@link IOException}.
+   */
+  @Nonnull
+  public static <T> Result<T> readAll(@Nonnull JsonBackend backend, @Nonnull Path directory, @Nonnull String glob, @Nonnull Type type, int parallelism)
+      throws IOException {
+    PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    List<Path> paths;
+    try (Stream<Path> walk = Files.walk(directory)) {
+      paths = walk.filter(Files::isRegularFile)
+          .filter(path -> matcher.matches(directory.relativize(path)))
+          .collect(Collectors.toList());
+    }
+    return run(paths, parallelism, path -> {
+      T value = backend.read(path, type);
+      if (value == null) {
+        // The backends return null both for a file that is gone and for one that holds no value
+        if (Files.notExists(path)) {
+          throw new NoSuchFileException(path.toString());
+        }
+        throw new IOException("Empty or null document: " + path);
+      }
+      return value;
+    });
+  }
+
+  @Nonnull
+  public static <T> Result<T> writeAll(@Nonnull JsonBackend backend, @Nonnull Map<Path, ? extends T> objects, @Nonnull Type type, int parallelism)
+      throws IOException {
+    return run(new ArrayList<>(objects.keySet()), parallelism, path -> {
+      T object = objects.get(path);
+      backend.write(path, type, object);
+      return object;
+    });
+  }
+
+  @FunctionalInterface
+  private interface PathTask<T> {
+
+    T apply(Path path) throws IOException;
+
+  }
+
+  private static <T> Result<T> run(List<Path> paths, int parallelism, PathTask<T> task) throws IOException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive");
+    }
+    Object[] values = new Object[paths.size()];
+    Exception[] failures = new Exception[paths.size()];
+    List<CompletableFuture<Void>> futures = new ArrayList<>(paths.size());
+    Semaphore permits = new Semaphore(parallelism);
+    try {
+      for (int i = 0; i < paths.size(); i++) {
+        final int index = i;
+        permits.acquire();
+        futures.add(JsonAsync.supply(() -> {
+          try {
+            values[index] = task.apply(paths.get(index));
+          } catch (Exception e) {
+            failures[index] = e;
+          } finally {
+            permits.release();
+          }
+          return null;
+        }));
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+    } catch (InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for " + paths.size() + " files");
+    }
+
+    Map<Path, T> valueMap = new LinkedHashMap<>();
+    Map<Path, Exception> failureMap = new LinkedHashMap<>();
+    for (int i = 0; i < paths.size(); i++) {
+      if (failures[i] != null) {
+        failureMap.put(paths.get(i), failures[i]);
+      } else {
+        @SuppressWarnings("unchecked") // only ever assigned from task.apply
+        T value = (T) values[i];
+        valueMap.put(paths.get(i), value);
+      }
+    }
+    return new Result<>(Collections.unmodifiableMap(valueMap), Collections.unmodifiableMap(failureMap));
+  }
+
+}
@@ -0,0 +1,225 @@
+package com.aaronjyoder.util.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Pushes freshly parsed objects to subscribers whenever their JSON files change, using a {@link WatchService} instead of polling. Bursts of events for the same
+ * file are debounced, and only the file that changed is parsed again, on a background thread. Listeners are called on that thread.
+ * <p>
+ * Directory subscriptions are not recursive: {@code glob} is matched against the names of files directly inside the directory.
+ */
+public final class JsonFileWatcher implements Closeable {
+
+  private static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(100);
+
+  private final JsonBackend backend;
+  private final long debounceNanos;
+  private final WatchService watchService;
+  private final ScheduledExecutorService reloader;
+  private final Thread watchThread;
+
+  private final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+  private final Map<Path, WatchKey> watchedDirectories = new HashMap<>();
+  private final Map<Path, ScheduledFuture<?>> pendingReloads = new ConcurrentHashMap<>();
+
+  public interface Listener<T> {
+
+    /**
+     * Called with the newly parsed contents of {@code path}, or {@code null} if the file was deleted.
+     */
+    void onChange(@Nonnull Path path, @Nullable T value);
+
+    default void onError(@Nonnull Path path, @Nonnull Exception e) {
+    }
+
+  }
+
+  private JsonFileWatcher(JsonBackend backend, Duration debounce) throws IOException {
+    if (backend == null || debounce == null) {
+      throw new NullPointerException();
+    }
+    this.backend = backend;
+    this.debounceNanos = debounce.toNanos();
+    this.watchService = FileSystems.getDefault().newWatchService();
+    this.reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "json-file-watcher-reload");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.watchThread = new Thread(this::watch, "json-file-watcher");
+    this.watchThread.setDaemon(true);
+    this.watchThread.start();
+  }
+
+  /**
+   * Creates a watcher that waits for 100 ms of quiet before parsing a changed file.
+   */
+  public static JsonFileWatcher of(@Nonnull JsonBackend backend) throws IOException {
+    return new JsonFileWatcher(backend, DEFAULT_DEBOUNCE);
+  }
+
+  public static JsonFileWatcher of(@Nonnull JsonBackend backend, @Nonnull Duration debounce) throws IOException {
+    return new JsonFileWatcher(backend, debounce);
+  }
+
+  /**
+   * Subscribes to changes of a single file. Closing the returned handle cancels the subscription.
+   */
+  @Nonnull
+  public <T> Closeable subscribe(@Nonnull Path file, @Nonnull Type type, @Nonnull Listener<? super T> listener) throws IOException {
+    Path normalized = file.toAbsolutePath().normalize();
+    Path fileName = normalized.getFileName();
+    return subscribe(new Subscription<>(normalized.getParent(), fileName::equals, type, listener));
+  }
+
+  /**
+   * Subscribes to changes of every file directly inside {@code directory} whose name matches {@code glob}. Closing the returned handle cancels the subscription.
+   */
+  @Nonnull
+  public <T> Closeable subscribe(@Nonnull Path directory, @Nonnull String glob, @Nonnull Type type, @Nonnull Listener<? super T> listener) throws IOException {
+    PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    return subscribe(new Subscription<>(directory.toAbsolutePath().normalize(), matcher::matches, type, listener));
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+    reloader.shutdownNow();
+    watchThread.interrupt();
+  }
+
+  private Closeable subscribe(Subscription<?> subscription) throws IOException {
+    synchronized (watchedDirectories) {
+      if (!watchedDirectories.containsKey(subscription.directory())) {
+        WatchKey key = subscription.directory().register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        watchedDirectories.put(subscription.directory(), key);
+      }
+      subscriptions.add(subscription);
+    }
+    return () -> unsubscribe(subscription);
+  }
+
+  private void unsubscribe(Subscription<?> subscription) {
+    synchronized (watchedDirectories) {
+      if (!subscriptions.remove(subscription)) {
+        return;
+      }
+      Path directory = subscription.directory();
+      if (subscriptions.stream().noneMatch(other -> other.directory().equals(directory))) {
+        WatchKey key = watchedDirectories.remove(directory);
+        if (key != null) {
+          key.cancel();
+        }
+      }
+    }
+  }
+
+  private void watch() {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            scheduleDirectory(directory);
+          } else {
+            scheduleReload(directory.resolve((Path) event.context()));
+          }
+        }
+        key.reset();
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // closed
+    }
+  }
+
+  private void scheduleDirectory(Path directory) {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        scheduleReload(file);
+      }
+    } catch (IOException e) {
+      for (Subscription<?> subscription : subscriptions) {
+        if (subscription.directory().equals(directory)) {
+          subscription.listener().onError(directory, e);
+        }
+      }
+    }
+  }
+
+  private void scheduleReload(Path file) {
+    if (subscriptions.stream().noneMatch(subscription -> subscription.matches(file))) {
+      return;
+    }
+    pendingReloads.compute(file, (path, pending) -> {
+      if (pending != null) {
+        pending.cancel(false);
+      }
+      return reloader.schedule(() -> reload(path), debounceNanos, TimeUnit.NANOSECONDS);
+    });
+  }
+
+  private void reload(Path file) {
+    pendingReloads.remove(file);
+    Map<Type, Object> parsed = new HashMap<>();
+    for (Subscription<?> subscription : subscriptions) {
+      if (!subscription.matches(file)) {
+        continue;
+      }
+      try {
+        if (!parsed.containsKey(subscription.type())) {
+          parsed.put(subscription.type(), backend.read(file, subscription.type()));
+        }
+        deliver(subscription, file, parsed.get(subscription.type()));
+      } catch (Exception e) {
+        subscription.listener().onError(file, e);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked") // the value was read as subscription.type()
+  private static <T> void deliver(Subscription<T> subscription, Path file, Object value) {
+    subscription.listener().onChange(file, (T) value);
+  }
+
+  @FunctionalInterface
+  private interface NameFilter {
+
+    boolean matches(Path fileName);
+
+  }
+
+  private record Subscription<T>(Path directory, NameFilter filter, Type type, Listener<? super T> listener) {
+
+    boolean matches(Path file) {
+      return directory.equals(file.getParent()) && filter.matches(file.getFileName());
+    }
+
+  }
+
+}
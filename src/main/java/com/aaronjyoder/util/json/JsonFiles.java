@@ -0,0 +1,272 @@
+package com.aaronjyoder.util.json;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.UnaryOperator;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Nonnull;
+
+/**
+ * Opens the byte streams the utils parse from and serialize to, applying the buffering, compression and durability parts of {@link ReadOptions} and
+ * {@link WriteOptions}.
+ */
+public final class JsonFiles {
+
+  private JsonFiles() {
+  }
+
+  @FunctionalInterface
+  public interface Rewriter {
+
+    /**
+     * Copies the current contents from {@code in} to {@code out}, changing whatever needs changing, and returns {@code false} to keep the original file after
+     * all.
+     */
+    boolean rewrite(InputStream in, OutputStream out) throws IOException;
+
+  }
+
+  @FunctionalInterface
+  public interface Output {
+
+    /**
+     * Writes the whole document to {@code out}.
+     */
+    void write(OutputStream out) throws IOException;
+
+  }
+
+  @Nonnull
+  public static InputStream newInputStream(@Nonnull Path path, @Nonnull ReadOptions options) throws IOException {
+    InputStream in = options.memoryMapped() ? MappedInputStream.open(path) : Files.newInputStream(path);
+    try {
+      switch (options.compression().resolve(path)) {
+        case GZIP:
+          return new GZIPInputStream(in, options.bufferSize());
+        case DEFLATE:
+          Inflater inflater = new Inflater();
+          return new InflaterInputStream(in, inflater, options.bufferSize()) {
+            @Override
+            public void close() throws IOException {
+              try {
+                super.close();
+              } finally {
+                inflater.end();
+              }
+            }
+          };
+        default:
+          return options.memoryMapped() ? in : new BufferedInputStream(in, options.bufferSize());
+      }
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Creates or truncates {@code path}. Closing the returned stream flushes it, finishes any compressed stream and, unless the fsync policy is
+   * {@link WriteOptions.Fsync#NONE}, forces the file to the storage device before the file is closed. The {@link JsonArrayIndex} sidecar that
+   * {@link WriteOptions#arrayIndexInterval()} asks for is collected from the bytes on their way to the file and written once it is closed.
+   * <p>
+   * A failed serialization leaves {@code path} truncated and half written; use {@link #write(Path, WriteOptions, Output)} unless {@code path} is a temporary
+   * file the caller moves into place itself.
+   */
+  @Nonnull
+  public static OutputStream newOutputStream(@Nonnull Path path, @Nonnull WriteOptions options) throws IOException {
+    FileOutput out = FileOutput.open(path, options);
+    out.sidecar = path;
+    return out;
+  }
+
+  /**
+   * Same as {@link #write(Path, WriteOptions, UnaryOperator, Output)} without a decorator.
+   */
+  public static void write(@Nonnull Path path, @Nonnull WriteOptions options, @Nonnull Output output) throws IOException {
+    write(path, options, UnaryOperator.identity(), output);
+  }
+
+  /**
+   * Streams what {@code output} writes into a temporary sibling of {@code path} and moves it over {@code path} in one atomic rename once {@code output}
+   * returns, so a failed serialization leaves {@code path} as it was. The temporary file is compressed like {@code path} unless {@code options} names a
+   * compression explicitly, and is only forced to the storage device and given its {@link JsonArrayIndex} sidecar once the document is complete; on failure
+   * it is removed again.
+   * <p>
+   * {@code decorator} wraps the stream handed to {@code output}, such as {@code JsonMetrics.track}. Closing the wrapped stream inside {@code output} only
+   * flushes it, since some backends close their target even when they fail; the close that finishes and forces the file goes through the decorator after
+   * {@code output} returns.
+   */
+  public static void write(@Nonnull Path path, @Nonnull WriteOptions options, @Nonnull UnaryOperator<OutputStream> decorator, @Nonnull Output output)
+      throws IOException {
+    Path target = path.toAbsolutePath();
+    Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+    boolean replaced = false;
+    try {
+      // The temp file's name does not carry the target's extension, so pick the compression from the target
+      FileOutput staged = FileOutput.open(temp, options.withCompression(options.compression().resolve(target)));
+      try {
+        OutputStream out = decorator.apply(staged);
+        staged.staging = true;
+        output.write(out);
+        staged.staging = false;
+        out.close();
+        staged.close();
+      } finally {
+        staged.abort();
+      }
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      replaced = true;
+      if (staged.scanner != null) {
+        JsonArrayIndex.save(target, staged.scanner);
+      }
+    } finally {
+      if (!replaced) {
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+
+  /**
+   * Streams {@code path} through {@code rewriter} into a temporary sibling and, if the rewriter reports a change, moves the result over {@code path} in one
+   * atomic rename, so readers never see a half-written file. The temporary file is compressed like {@code path} unless {@code writeOptions} names a compression
+   * explicitly, and is removed again if anything fails. A {@link JsonArrayIndex} sidecar of {@code path} goes stale and is rebuilt when it is next used.
+   *
+   * @return whether {@code path} was replaced
+   */
+  public static boolean rewrite(@Nonnull Path path, @Nonnull ReadOptions readOptions, @Nonnull WriteOptions writeOptions, @Nonnull Rewriter rewriter)
+      throws IOException {
+    Path target = path.toAbsolutePath();
+    Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+    boolean replaced = false;
+    try {
+      boolean changed;
+      // The temp file's name does not carry the target's extension, so pick the compression from the target
+      try (InputStream in = newInputStream(target, readOptions);
+          OutputStream out = newOutputStream(temp, writeOptions.withCompression(writeOptions.compression().resolve(target)).withArrayIndexInterval(0))) {
+        changed = rewriter.rewrite(in, out);
+      }
+      if (changed) {
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        replaced = true;
+      }
+      return changed;
+    } finally {
+      if (!replaced) {
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+
+  private static final class FileOutput extends BufferedOutputStream {
+
+    private final FileChannel channel;
+    private final DeflaterOutputStream compressor;
+    private final JsonArrayIndex.Scanner scanner;
+    private final WriteOptions options;
+    private Path sidecar;
+    private boolean staging;
+    private boolean closed;
+
+    private FileOutput(FileChannel channel, DeflaterOutputStream compressor, JsonArrayIndex.Scanner scanner, OutputStream target, WriteOptions options) {
+      super(target, options.bufferSize());
+      this.channel = channel;
+      this.compressor = compressor;
+      this.scanner = scanner;
+      this.options = options;
+    }
+
+    static FileOutput open(Path path, WriteOptions options) throws IOException {
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+      OutputStream out = Channels.newOutputStream(channel);
+      DeflaterOutputStream compressor;
+      switch (options.compression().resolve(path)) {
+        case GZIP:
+          compressor = new GZIPOutputStream(out, options.bufferSize()) {
+            {
+              def.setLevel(options.compressionLevel());
+            }
+          };
+          break;
+        case DEFLATE:
+          Deflater deflater = new Deflater(options.compressionLevel());
+          compressor = new DeflaterOutputStream(out, deflater, options.bufferSize()) {
+            @Override
+            public void close() throws IOException {
+              try {
+                super.close();
+              } finally {
+                deflater.end();
+              }
+            }
+          };
+          break;
+        default:
+          compressor = null;
+      }
+      JsonArrayIndex.Scanner scanner = compressor == null && options.arrayIndexInterval() > 0 ? new JsonArrayIndex.Scanner(options.arrayIndexInterval()) : null;
+      OutputStream target = compressor != null ? compressor : scanner != null ? scanner.wrap(out) : out;
+      return new FileOutput(channel, compressor, scanner, target, options);
+    }
+
+    @Override
+    public void close() throws IOException {
+      // Some backends close the target themselves before try-with-resources does, and a staged write is only finished once it is complete
+      if (closed) {
+        return;
+      }
+      if (staging) {
+        flush();
+        return;
+      }
+      closed = true;
+      try {
+        flush();
+        if (compressor != null) {
+          compressor.finish();
+        }
+        if (options.fsync() != WriteOptions.Fsync.NONE) {
+          channel.force(options.fsync() == WriteOptions.Fsync.ALL);
+        }
+      } finally {
+        super.close();
+      }
+      if (sidecar != null && scanner != null) {
+        JsonArrayIndex.save(sidecar, scanner);
+      }
+    }
+
+    // Releases the file and any deflater of a write that did not complete, without flushing or forcing anything
+    void abort() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        channel.close();
+      } catch (IOException ignored) {
+      }
+      if (compressor != null) {
+        try {
+          compressor.close();
+        } catch (IOException ignored) {
+        }
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,371 @@
+package com.aaronjyoder.util.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.annotation.Nonnull;
+
+/**
+ * Backend-independent plumbing for JSON Lines (NDJSON) files, which hold one compact JSON value per line, for the {@code append}/{@code readLines} methods of
+ * the utils.
+ * <p>
+ * Appends go through an {@link Appender} that stays open per file, so each append costs one write to an already open channel rather than rewriting the file.
+ * Large files can be read in parallel: the returned stream splits the file into byte ranges that start right after a newline, and each range is parsed on its
+ * own, on the common fork-join pool or on whichever pool the terminal operation runs in.
+ */
+public final class JsonLines {
+
+  // Ranges smaller than this are not split any further
+  private static final long MIN_SPLIT_SIZE = 1 << 20;
+
+  private static final Map<Path, Appender> appenders = new ConcurrentHashMap<>();
+
+  private JsonLines() {
+  }
+
+  @FunctionalInterface
+  public interface Encoder {
+
+    /**
+     * Writes one compact JSON value to {@code out}, without a trailing newline. {@code out} does not need to be closed.
+     */
+    void encode(OutputStream out) throws IOException;
+
+  }
+
+  @FunctionalInterface
+  public interface Decoder<T> {
+
+    /**
+     * Opens a reader over {@code in} that reads one value per call until {@code in} is exhausted.
+     */
+    JsonStreams.ElementReader<T> open(InputStream in) throws IOException;
+
+  }
+
+  /**
+   * Appends lines to one file. Each line is encoded completely before anything is written, so a value that fails to serialize leaves the file untouched, and
+   * each line reaches the file in a single write to a channel opened in append mode.
+   */
+  public static final class Appender implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final LineBuffer buffer = new LineBuffer();
+
+    private Appender(Path path) throws IOException {
+      this.path = path;
+      Files.createDirectories(path.getParent());
+      this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    public synchronized void append(@Nonnull Encoder encoder) throws IOException {
+      buffer.recycle();
+      encoder.encode(buffer);
+      buffer.write('\n');
+      ByteBuffer line = buffer.asByteBuffer();
+      while (line.hasRemaining()) {
+        channel.write(line);
+      }
+    }
+
+    /**
+     * Forces the appended lines to the storage device, like {@code fsync}.
+     */
+    public synchronized void sync() throws IOException {
+      channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+      appenders.remove(path, this);
+      channel.close();
+    }
+
+  }
+
+  /**
+   * Returns the shared appender of {@code path}, opening it if no appender of that file is open yet. It stays open until {@link #close(Path)} or
+   * {@link #closeAll()}; close it before deleting, moving or rewriting the file so that later appends do not go to the old file.
+   */
+  @Nonnull
+  public static Appender appender(@Nonnull Path path) throws IOException {
+    Path normalized = path.toAbsolutePath().normalize();
+    Appender appender = appenders.get(normalized);
+    if (appender != null && appender.channel.isOpen()) {
+      return appender;
+    }
+    try {
+      return appenders.compute(normalized, (key, existing) -> {
+        if (existing != null && existing.channel.isOpen()) {
+          return existing;
+        }
+        try {
+          return new Appender(key);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  public static void append(@Nonnull Path path, @Nonnull Encoder encoder) throws IOException {
+    appender(path).append(encoder);
+  }
+
+  public static void close(@Nonnull Path path) throws IOException {
+    Appender appender = appenders.get(path.toAbsolutePath().normalize());
+    if (appender != null) {
+      appender.close();
+    }
+  }
+
+  public static void closeAll() throws IOException {
+    IOException failure = null;
+    for (Appender appender : appenders.values()) {
+      try {
+        appender.close();
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Lazily reads the values of {@code path} in order. Compressed files are inflated according to {@code options}.
+   */
+  @Nonnull
+  public static <T> Stream<T> read(@Nonnull Path path, @Nonnull ReadOptions options, @Nonnull Decoder<T> decoder) throws IOException {
+    if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+      return Stream.empty();
+    }
+    InputStream in = JsonFiles.newInputStream(path, options);
+    try {
+      return JsonStreams.lazy(decoder.open(in), in);
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the values of {@code path} as a parallel stream that splits the file on line boundaries. The stream is still ordered; use
+   * {@link Stream#unordered()} if the order of the lines does not matter. Compressed files cannot be split and are read sequentially.
+   */
+  @Nonnull
+  public static <T> Stream<T> readParallel(@Nonnull Path path, @Nonnull ReadOptions options, @Nonnull Decoder<T> decoder) throws IOException {
+    if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+      return Stream.empty();
+    }
+    if (options.compression().resolve(path) != Compression.NONE) {
+      return read(path, options, decoder);
+    }
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      return StreamSupport.stream(new RangeSpliterator<>(channel, 0, channel.size(), options.bufferSize(), decoder), true).onClose(() -> {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private static final class RangeSpliterator<T> implements Spliterator<T> {
+
+    private final FileChannel channel;
+    private long start;
+    private final long end;
+    private final int bufferSize;
+    private final Decoder<T> decoder;
+    private JsonStreams.ElementReader<T> reader;
+    private boolean done;
+
+    private RangeSpliterator(FileChannel channel, long start, long end, int bufferSize, Decoder<T> decoder) {
+      this.channel = channel;
+      this.start = start;
+      this.end = end;
+      this.bufferSize = bufferSize;
+      this.decoder = decoder;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      if (done) {
+        return false;
+      }
+      try {
+        if (reader == null) {
+          reader = decoder.open(new RangeInputStream(channel, start, end, bufferSize));
+        }
+        done = !reader.next(action);
+        return !done;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+      if (reader != null || end - start < 2 * MIN_SPLIT_SIZE) {
+        return null;
+      }
+      try {
+        long middle = nextLineStart(start + (end - start) / 2);
+        if (middle >= end) {
+          return null;
+        }
+        Spliterator<T> prefix = new RangeSpliterator<>(channel, start, middle, bufferSize, decoder);
+        start = middle;
+        return prefix;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    // The position just after the first newline at or after position, or end if there is none
+    private long nextLineStart(long position) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(8192);
+      while (position < end) {
+        buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+        int read = channel.read(buffer, position);
+        if (read < 0) {
+          break;
+        }
+        for (int i = 0; i < read; i++) {
+          if (buffer.get(i) == '\n') {
+            return position + i + 1;
+          }
+        }
+        position += read;
+      }
+      return end;
+    }
+
+    @Override
+    public long estimateSize() {
+      return end - start;
+    }
+
+    // Not NONNULL: a line holding null decodes to a null element
+    @Override
+    public int characteristics() {
+      return ORDERED;
+    }
+
+  }
+
+  // Reads [position, end) of a channel that is shared between ranges, using positional reads only
+  static final class RangeInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long position;
+    private final long end;
+
+    RangeInputStream(FileChannel channel, long position, long end, int bufferSize) {
+      this.channel = channel;
+      this.buffer = ByteBuffer.allocate((int) Math.min(bufferSize, Math.max(1, end - position))).limit(0);
+      this.position = position;
+      this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return fill() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!fill()) {
+        return -1;
+      }
+      int count = Math.min(len, buffer.remaining());
+      buffer.get(b, off, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+
+    private boolean fill() throws IOException {
+      if (buffer.hasRemaining()) {
+        return true;
+      }
+      if (position >= end) {
+        return false;
+      }
+      buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+      int read = channel.read(buffer, position);
+      buffer.flip();
+      if (read <= 0) {
+        position = end;
+        return false;
+      }
+      position += read;
+      return true;
+    }
+
+  }
+
+  // Reusable line buffer whose bytes can be written without copying them out first
+  static final class LineBuffer extends ByteArrayOutputStream {
+
+    private static final int MAX_RETAINED = 1 << 16;
+
+    LineBuffer() {
+      super(512);
+    }
+
+    ByteBuffer asByteBuffer() {
+      return ByteBuffer.wrap(buf, 0, count);
+    }
+
+    // Like reset(), but drops storage that an unusually large line grew, so one huge value does not pin its memory for the life of the appender
+    void recycle() {
+      if (buf.length > MAX_RETAINED) {
+        buf = new byte[MAX_RETAINED];
+      }
+      count = 0;
+    }
+
+    @Override
+    public void close() {
+      // The encoders may close their target; the buffer outlives them
+    }
+
+  }
+
+}
@@ -0,0 +1,71 @@
+package com.aaronjyoder.util.json;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+/**
+ * Parses <a href="https://datatracker.ietf.org/doc/html/rfc6901">RFC 6901</a> JSON Pointers such as {@code /settings/limits} or {@code /items/0} for the
+ * partial reads and updates of the utils.
+ */
+public final class JsonPointers {
+
+  private JsonPointers() {
+  }
+
+  /**
+   * Splits {@code pointer} into its unescaped reference tokens. The empty pointer refers to the whole document and has no tokens.
+   *
+   * @throws IllegalArgumentException if {@code pointer} is neither empty nor starts with {@code /}, or contains a {@code ~} that is not followed by {@code 0} or
+   *                                  {@code 1}
+   */
+  @Nonnull
+  public static List<String> parse(@Nonnull String pointer) {
+    if (pointer.isEmpty()) {
+      return List.of();
+    }
+    if (pointer.charAt(0) != '/') {
+      throw new IllegalArgumentException("JSON Pointer must be empty or start with '/': " + pointer);
+    }
+    List<String> tokens = new ArrayList<>();
+    StringBuilder token = new StringBuilder();
+    for (int i = 1; i <= pointer.length(); i++) {
+      char c = i < pointer.length() ? pointer.charAt(i) : '/';
+      if (c == '/') {
+        tokens.add(token.toString());
+        token.setLength(0);
+      } else if (c == '~') {
+        char escaped = i + 1 < pointer.length() ? pointer.charAt(++i) : 0;
+        if (escaped == '0') {
+          token.append('~');
+        } else if (escaped == '1') {
+          token.append('/');
+        } else {
+          throw new IllegalArgumentException("Invalid escape in JSON Pointer: " + pointer);
+        }
+      } else {
+        token.append(c);
+      }
+    }
+    return List.copyOf(tokens);
+  }
+
+  /**
+   * The array index that {@code token} refers to, or -1 if it is not a valid index (leading zeros, a sign, {@code -} or anything but digits).
+   */
+  public static int index(@Nonnull String token) {
+    if (token.isEmpty() || token.length() > 10 || (token.length() > 1 && token.charAt(0) == '0')) {
+      return -1;
+    }
+    long index = 0;
+    for (int i = 0; i < token.length(); i++) {
+      char c = token.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      index = index * 10 + (c - '0');
+    }
+    return index <= Integer.MAX_VALUE ? (int) index : -1;
+  }
+
+}
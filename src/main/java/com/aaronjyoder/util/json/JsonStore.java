@@ -0,0 +1,530 @@
+package com.aaronjyoder.util.json;
+
+import com.squareup.moshi.Types;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Key-addressable store of JSON records in a directory, for data sets that are too large to rewrite as one document on every change. Records are spread over a
+ * fixed number of shards by key hash. Each shard is a JSON Lines file that puts and removals are appended to, and an in-memory index maps every key to the
+ * offset and length of its latest line, so a lookup reads and parses exactly one record and an update appends exactly one.
+ * <p>
+ * Superseded lines and removals stay in their shard as garbage until it is compacted: rewritten with only its live records as a new generation of the shard
+ * file, after which the old generation is deleted. A shard is compacted automatically once more than half of it is garbage, or by {@link #compact()}. The index
+ * of each shard is saved next to it on {@link #flush()}, {@link #close()} and compaction; lines appended after that are replayed when the store is opened, and a
+ * torn last line left behind by a crash is dropped.
+ * <p>
+ * Keys are assigned to shards by {@code hashCode()}, which therefore must be the same in every run, as it is for strings, boxed primitives, and records of
+ * those. The store needs a text backend; {@link JsonBackend#SMILE} has no JSON Lines form. A directory must not be open in more than one store at a time.
+ */
+public final class JsonStore<K, V> implements Closeable, Flushable {
+
+  private static final int DEFAULT_SHARDS = 16;
+  // Shards with less garbage than this are not compacted automatically, however much of them it is
+  private static final long MIN_COMPACTION_GARBAGE = 1 << 20;
+  private static final int SCAN_BUFFER_SIZE = 1 << 16;
+
+  private static final String MANIFEST = "store.json";
+  private static final Pattern SHARD_FILE = Pattern.compile("shard-(\\d+)\\.(\\d+)\\.(jsonl|index\\.json)(\\.tmp)?");
+
+  private final JsonBackend backend;
+  private final Path directory;
+  private final Type lineType;
+  private final Type indexType;
+  private final JsonLines.Decoder<Line<K, V>> decoder;
+  private final List<Shard> shards;
+
+  private JsonStore(JsonBackend backend, Path directory, Type keyType, Type valueType, int shardCount) throws IOException {
+    if (backend == null || directory == null || keyType == null || valueType == null) {
+      throw new NullPointerException();
+    }
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("shards must be positive");
+    }
+    this.backend = backend;
+    this.directory = directory;
+    // With an owner type, since Moshi rejects parameterized member classes without one
+    this.lineType = Types.newParameterizedTypeWithOwner(JsonStore.class, Line.class, keyType, valueType);
+    this.indexType = Types.newParameterizedTypeWithOwner(JsonStore.class, Index.class, keyType);
+    this.decoder = backend.lineDecoder(lineType);
+
+    Files.createDirectories(directory);
+    Path manifestPath = directory.resolve(MANIFEST);
+    Manifest manifest = backend.read(manifestPath, Manifest.class);
+    if (manifest == null) {
+      manifest = new Manifest();
+      manifest.shards = shardCount;
+      backend.write(manifestPath, Manifest.class, manifest);
+    } else if (manifest.shards < 1) {
+      throw new IOException("Corrupt manifest " + manifestPath + ": shards must be positive, was " + manifest.shards);
+    }
+
+    Map<Integer, Long> generations = new HashMap<>();
+    List<Path> stale = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "shard-*")) {
+      for (Path file : files) {
+        Matcher matcher = SHARD_FILE.matcher(file.getFileName().toString());
+        if (!matcher.matches()) {
+          continue;
+        }
+        if (matcher.group(4) != null) {
+          stale.add(file);
+        } else if (matcher.group(3).equals("jsonl")) {
+          generations.merge(Integer.parseInt(matcher.group(1)), Long.parseLong(matcher.group(2)), Math::max);
+        }
+      }
+    }
+    List<Shard> shards = new ArrayList<>(manifest.shards);
+    try {
+      for (int number = 0; number < manifest.shards; number++) {
+        shards.add(new Shard(number, generations.getOrDefault(number, 0L)));
+      }
+    } catch (IOException | RuntimeException e) {
+      for (Shard shard : shards) {
+        shard.channel.close();
+      }
+      throw e;
+    }
+    this.shards = shards;
+
+    // Leftovers of interrupted compactions and older generations
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "shard-*")) {
+      for (Path file : files) {
+        Matcher matcher = SHARD_FILE.matcher(file.getFileName().toString());
+        if (matcher.matches() && matcher.group(4) == null && Long.parseLong(matcher.group(2)) < generations.getOrDefault(Integer.parseInt(matcher.group(1)), 0L)) {
+          stale.add(file);
+        }
+      }
+    }
+    for (Path file : stale) {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /**
+   * Opens the store in {@code directory}, creating it with 16 shards if it does not exist yet.
+   */
+  @Nonnull
+  public static <K, V> JsonStore<K, V> open(@Nonnull JsonBackend backend, @Nonnull Path directory, @Nonnull Type keyType, @Nonnull Type valueType)
+      throws IOException {
+    return new JsonStore<>(backend, directory, keyType, valueType, DEFAULT_SHARDS);
+  }
+
+  /**
+   * Opens the store in {@code directory}, creating it with {@code shards} shards if it does not exist yet. An existing store keeps the number of shards it was
+   * created with.
+   */
+  @Nonnull
+  public static <K, V> JsonStore<K, V> open(@Nonnull JsonBackend backend, @Nonnull Path directory, @Nonnull Type keyType, @Nonnull Type valueType, int shards)
+      throws IOException {
+    return new JsonStore<>(backend, directory, keyType, valueType, shards);
+  }
+
+  @Nullable
+  public V get(@Nonnull K key) throws IOException {
+    Shard shard = shard(key);
+    byte[] bytes;
+    synchronized (shard) {
+      Slot slot = shard.slots.get(key);
+      if (slot == null) {
+        return null;
+      }
+      bytes = shard.read(slot);
+    }
+    return decode(bytes).value;
+  }
+
+  public boolean containsKey(@Nonnull K key) {
+    Shard shard = shard(key);
+    synchronized (shard) {
+      return shard.slots.containsKey(key);
+    }
+  }
+
+  public void put(@Nonnull K key, @Nonnull V value) throws IOException {
+    if (value == null) {
+      throw new NullPointerException();
+    }
+    Shard shard = shard(key);
+    synchronized (shard) {
+      Slot slot = shard.append(new Line<>(key, value));
+      Slot previous = shard.slots.put(key, slot);
+      if (previous != null) {
+        shard.garbage += previous.length() + 1;
+      }
+      shard.compactIfWasteful();
+    }
+  }
+
+  /**
+   * Removes {@code key} by appending a removal to its shard.
+   *
+   * @return {@code false} if there was no record to remove
+   */
+  public boolean remove(@Nonnull K key) throws IOException {
+    Shard shard = shard(key);
+    synchronized (shard) {
+      Slot previous = shard.slots.get(key);
+      if (previous == null) {
+        return false;
+      }
+      Slot removal = shard.append(new Line<>(key, null));
+      shard.slots.remove(key);
+      shard.garbage += previous.length() + 1 + removal.length() + 1;
+      shard.compactIfWasteful();
+      return true;
+    }
+  }
+
+  public long size() {
+    long size = 0;
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        size += shard.slots.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Lazily reads every record, shard by shard. Each shard is read sequentially in one pass while it is locked, so the stream sees a consistent state of every
+   * shard, but changes to shards it has already passed are not reflected.
+   */
+  @Nonnull
+  public Stream<Map.Entry<K, V>> scan() {
+    return shards.stream().flatMap(shard -> {
+      try {
+        return shard.entries().stream();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  /**
+   * Compacts every shard that holds any garbage.
+   */
+  public void compact() throws IOException {
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        if (shard.garbage > 0) {
+          shard.compact();
+        }
+      }
+    }
+  }
+
+  /**
+   * Forces appended records to the storage device and saves the index of every shard that changed since it was last saved.
+   */
+  @Override
+  public void flush() throws IOException {
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        shard.flush();
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        try {
+          shard.flush();
+        } catch (IOException e) {
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        } finally {
+          shard.channel.close();
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private Shard shard(K key) {
+    int hash = key.hashCode();
+    return shards.get(Math.floorMod(hash ^ (hash >>> 16), shards.size()));
+  }
+
+  private Line<K, V> decode(byte[] bytes) throws IOException {
+    List<Line<K, V>> lines = new ArrayList<>(1);
+    decoder.open(new ByteArrayInputStream(bytes)).next(lines::add);
+    if (lines.isEmpty() || lines.get(0) == null || lines.get(0).key == null) {
+      throw new EOFException("Record without a key in " + directory);
+    }
+    return lines.get(0);
+  }
+
+  private final class Shard {
+
+    private final int number;
+    private final Map<K, Slot> slots = new HashMap<>();
+    private final JsonLines.LineBuffer buffer = new JsonLines.LineBuffer();
+    private long generation;
+    private FileChannel channel;
+    // Bytes of the shard file, bytes of it that are superseded lines or removals, and bytes of it that the saved index covers
+    private long size;
+    private long garbage;
+    private long indexed;
+
+    private Shard(int number, long generation) throws IOException {
+      this.number = number;
+      this.generation = generation;
+      this.channel = FileChannel.open(path(generation), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      try {
+        this.size = channel.size();
+        loadIndex();
+        replay();
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    }
+
+    private Path path(long generation) {
+      return directory.resolve("shard-" + number + "." + generation + ".jsonl");
+    }
+
+    private Path indexPath(long generation) {
+      return directory.resolve("shard-" + number + "." + generation + ".index.json");
+    }
+
+    private void loadIndex() {
+      Index<K> index;
+      try {
+        index = backend.read(indexPath(generation), indexType);
+      } catch (IOException | RuntimeException e) {
+        // A torn index is rebuilt from the shard itself
+        index = null;
+      }
+      if (index == null || index.size > size || index.keys.size() != index.offsets.length || index.keys.size() != index.lengths.length) {
+        return;
+      }
+      for (int i = 0; i < index.offsets.length; i++) {
+        slots.put(index.keys.get(i), new Slot(index.offsets[i], index.lengths[i]));
+      }
+      garbage = index.garbage;
+      indexed = index.size;
+    }
+
+    // Applies the lines after the saved index, and truncates a last line that was never completed
+    private void replay() throws IOException {
+      InputStream in = new JsonLines.RangeInputStream(channel, indexed, size, SCAN_BUFFER_SIZE);
+      ByteArrayOutputStream line = new ByteArrayOutputStream();
+      long offset = indexed;
+      for (int b = in.read(); b != -1; b = in.read()) {
+        if (b != '\n') {
+          line.write(b);
+          continue;
+        }
+        Slot slot = new Slot(offset, line.size());
+        offset += line.size() + 1;
+        if (slot.length() > 0) {
+          apply(decode(line.toByteArray()), slot);
+        }
+        line.reset();
+      }
+      if (offset < size) {
+        channel.truncate(offset);
+        size = offset;
+      }
+    }
+
+    private void apply(Line<K, V> line, Slot slot) {
+      Slot previous = line.value == null ? slots.remove(line.key) : slots.put(line.key, slot);
+      if (previous != null) {
+        garbage += previous.length() + 1;
+      }
+      if (line.value == null) {
+        garbage += slot.length() + 1;
+      }
+    }
+
+    private Slot append(Line<K, V> line) throws IOException {
+      buffer.recycle();
+      backend.lineEncoder(lineType, line).encode(buffer);
+      Slot slot = new Slot(size, buffer.size());
+      buffer.write('\n');
+      ByteBuffer bytes = buffer.asByteBuffer();
+      long position = size;
+      while (bytes.hasRemaining()) {
+        position += channel.write(bytes, position);
+      }
+      size = position;
+      return slot;
+    }
+
+    private byte[] read(Slot slot) throws IOException {
+      ByteBuffer bytes = ByteBuffer.allocate(slot.length());
+      while (bytes.hasRemaining()) {
+        if (channel.read(bytes, slot.offset() + bytes.position()) < 0) {
+          throw new EOFException("Record past the end of " + path(generation));
+        }
+      }
+      return bytes.array();
+    }
+
+    private List<Map.Entry<K, V>> entries() throws IOException {
+      synchronized (this) {
+        List<Slot> live = new ArrayList<>(slots.values());
+        live.sort(Comparator.comparingLong(Slot::offset));
+        List<Map.Entry<K, V>> entries = new ArrayList<>(live.size());
+        InputStream in = new JsonLines.RangeInputStream(channel, 0, size, SCAN_BUFFER_SIZE);
+        long position = 0;
+        for (Slot slot : live) {
+          in.skipNBytes(slot.offset() - position);
+          Line<K, V> line = decode(in.readNBytes(slot.length()));
+          position = slot.offset() + slot.length();
+          entries.add(new SimpleImmutableEntry<>(line.key, line.value));
+        }
+        return entries;
+      }
+    }
+
+    private void compactIfWasteful() throws IOException {
+      if (garbage >= MIN_COMPACTION_GARBAGE && garbage * 2 > size) {
+        compact();
+      }
+    }
+
+    // Copies the live lines as they are into the next generation, which only replaces this one once it and its index are complete
+    private void compact() throws IOException {
+      long next = generation + 1;
+      Path target = path(next);
+      Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+      List<Map.Entry<K, Slot>> live = new ArrayList<>(slots.entrySet());
+      live.sort(Comparator.comparingLong(entry -> entry.getValue().offset()));
+      Map<K, Slot> moved = new HashMap<>(slots.size());
+      long position = 0;
+      try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        for (Map.Entry<K, Slot> entry : live) {
+          Slot slot = entry.getValue();
+          long copied = 0;
+          while (copied < slot.length() + 1) {
+            copied += channel.transferTo(slot.offset() + copied, slot.length() + 1 - copied, out);
+          }
+          moved.put(entry.getKey(), new Slot(position, slot.length()));
+          position += copied;
+        }
+        out.force(true);
+      } catch (IOException | RuntimeException e) {
+        Files.deleteIfExists(temp);
+        throw e;
+      }
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+      FileChannel previous = channel;
+      long previousGeneration = generation;
+      channel = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      generation = next;
+      size = position;
+      garbage = 0;
+      slots.clear();
+      slots.putAll(moved);
+      saveIndex();
+      previous.close();
+      Files.deleteIfExists(indexPath(previousGeneration));
+      Files.deleteIfExists(path(previousGeneration));
+    }
+
+    private void flush() throws IOException {
+      if (indexed == size) {
+        return;
+      }
+      channel.force(false);
+      saveIndex();
+    }
+
+    private void saveIndex() throws IOException {
+      Index<K> index = new Index<>();
+      index.size = size;
+      index.garbage = garbage;
+      index.keys = new ArrayList<>(slots.size());
+      index.offsets = new long[slots.size()];
+      index.lengths = new int[slots.size()];
+      int i = 0;
+      for (Map.Entry<K, Slot> entry : slots.entrySet()) {
+        index.keys.add(entry.getKey());
+        index.offsets[i] = entry.getValue().offset();
+        index.lengths[i] = entry.getValue().length();
+        i++;
+      }
+      Path target = indexPath(generation);
+      Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+      backend.write(temp, indexType, index, WriteOptions.COMPACT);
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      indexed = size;
+    }
+
+  }
+
+  private record Slot(long offset, int length) {
+
+  }
+
+  // One line of a shard; a line without a value removes its key
+  private static final class Line<K, V> {
+
+    public K key;
+    public V value;
+
+    private Line() {
+    }
+
+    private Line(K key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+
+  }
+
+  private static final class Index<K> {
+
+    public long size;
+    public long garbage;
+    public List<K> keys;
+    public long[] offsets;
+    public int[] lengths;
+
+  }
+
+  private static final class Manifest {
+
+    public int shards;
+
+  }
+
+}
@@ -0,0 +1,62 @@
+package com.aaronjyoder.util.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.annotation.Nonnull;
+
+/**
+ * Adapts a pull-based streaming reader into a sequential {@link Stream} that reads one element per {@link Spliterator#tryAdvance}.
+ */
+public final class JsonStreams {
+
+  private JsonStreams() {
+  }
+
+  @FunctionalInterface
+  public interface ElementReader<T> {
+
+    /**
+     * Reads the next element into {@code action}, or returns {@code false} once the enclosing array or object has been consumed.
+     */
+    boolean next(Consumer<? super T> action) throws IOException;
+
+  }
+
+  /**
+   * Creates a lazy stream over {@code reader}. Closing the stream closes {@code source}; {@link IOException IOExceptions} are rethrown as {@link
+   * UncheckedIOException}.
+   */
+  @Nonnull
+  public static <T> Stream<T> lazy(@Nonnull ElementReader<T> reader, @Nonnull Closeable source) {
+    Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+      private boolean done;
+
+      @Override
+      public boolean tryAdvance(Consumer<? super T> action) {
+        if (done) {
+          return false;
+        }
+        try {
+          done = !reader.next(action);
+          return !done;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    };
+    return StreamSupport.stream(spliterator, false).onClose(() -> {
+      try {
+        source.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+}
@@ -0,0 +1,399 @@
+package com.aaronjyoder.util.json;
+
+import com.aaronjyoder.util.json.metrics.JsonMetrics;
+import com.aaronjyoder.util.json.metrics.JsonOperation;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+/**
+ * Write-behind queue on top of a {@link JsonBackend}. Repeated writes to the same path are coalesced so that only the latest object is written, either after {@code
+ * delay} or once {@code maxPending} paths are waiting. Each flush writes every pending file to a temporary sibling, forces them to disk as one batch, and then
+ * atomically renames them over their targets, so readers never observe a torn file.
+ * <p>
+ * Objects are serialized when they are flushed, not when they are queued; callers that keep mutating an object will have its state at flush time written.
+ */
+public final class JsonWriteQueue implements Closeable, Flushable {
+
+  private static final Duration DEFAULT_DELAY = Duration.ofSeconds(1);
+  private static final int DEFAULT_MAX_PENDING = 256;
+  private static final long MIN_RETRY_DELAY_NANOS = Duration.ofMillis(100).toNanos();
+  private static final long MAX_RETRY_DELAY_NANOS = Duration.ofMinutes(1).toNanos();
+
+  private final JsonBackend backend;
+  private final long delayNanos;
+  private final int maxPending;
+  private final boolean fsync;
+
+  private final Object lock = new Object();
+  private final Object flushLock = new Object();
+  private final Map<Path, Pending<?>> pending = new LinkedHashMap<>();
+  private final ScheduledExecutorService scheduler;
+  private ScheduledFuture<?> scheduledFlush;
+  // Delay before the next retry of failed writes, doubled after every failed retry; zero while nothing is failing
+  private long retryNanos;
+  private IOException backgroundFailure;
+  // Set by the first close(), which rejects further writes; closed is only set once the queue has drained
+  private boolean closing;
+  private boolean closed;
+
+  private JsonWriteQueue(JsonBackend backend, Duration delay, int maxPending, boolean fsync) {
+    if (backend == null || delay == null) {
+      throw new NullPointerException();
+    }
+    if (delay.isNegative() || maxPending < 1) {
+      throw new IllegalArgumentException("delay must not be negative and maxPending must be positive");
+    }
+    this.backend = backend;
+    this.delayNanos = delay.toNanos();
+    this.maxPending = maxPending;
+    this.fsync = fsync;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "json-write-queue");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Creates a queue that flushes one second after the first pending write, or once 256 paths are pending, and forces every batch to disk.
+   */
+  public static JsonWriteQueue of(@Nonnull JsonBackend backend) {
+    return new JsonWriteQueue(backend, DEFAULT_DELAY, DEFAULT_MAX_PENDING, true);
+  }
+
+  /**
+   * Creates a queue that flushes {@code delay} after the first pending write, or once {@code maxPending} paths are pending. {@code fsync} decides whether each
+   * batch is forced to disk before it is renamed into place.
+   */
+  public static JsonWriteQueue of(@Nonnull JsonBackend backend, @Nonnull Duration delay, int maxPending, boolean fsync) {
+    return new JsonWriteQueue(backend, delay, maxPending, fsync);
+  }
+
+  /**
+   * Queues {@code object} to be written to {@code path}, replacing any write to the same path that has not been flushed yet.
+   *
+   * @throws IllegalStateException if this queue has been closed.
+   */
+  public <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) {
+    Path target = path.toAbsolutePath().normalize();
+    synchronized (lock) {
+      if (closing) {
+        throw new IllegalStateException("JsonWriteQueue is closed");
+      }
+      pending.put(target, new Pending<>(type, object));
+      if (pending.size() >= maxPending) {
+        cancelScheduledFlush();
+        scheduler.execute(this::backgroundFlush);
+      } else if (scheduledFlush == null) {
+        scheduledFlush = scheduler.schedule(this::backgroundFlush, delayNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
+  public <T> void write(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object) {
+    write(path, (Type) type, object);
+  }
+
+  public int pendingCount() {
+    synchronized (lock) {
+      return pending.size();
+    }
+  }
+
+  /**
+   * Writes every pending object now and blocks until the batch is durable (subject to {@code fsync}). Also rethrows the failure of any earlier background flush.
+   * Writes that fail with an I/O error stay queued, unless a newer object for the same path has been queued in the meantime, and are retried in the background
+   * with a backoff that doubles up to one minute; objects that fail to serialize are reported once and dropped.
+   */
+  @Override
+  public void flush() throws IOException {
+    IOException failure = flushPending();
+    IOException earlier;
+    synchronized (lock) {
+      earlier = backgroundFailure;
+      backgroundFailure = null;
+    }
+    if (earlier != null) {
+      if (failure != null) {
+        earlier.addSuppressed(failure);
+      }
+      throw earlier;
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Flushes all pending writes and stops the background thread. Further writes are rejected. If writes fail, they stay queued without background retries, this
+   * method throws, and calling it again retries them; the queue is only closed once nothing is pending.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closing = true;
+      cancelScheduledFlush();
+    }
+    IOException failure = null;
+    try {
+      flush();
+    } catch (IOException e) {
+      failure = e;
+    }
+    boolean drained;
+    synchronized (lock) {
+      drained = pending.isEmpty();
+      closed = drained;
+    }
+    if (drained) {
+      scheduler.shutdown();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void backgroundFlush() {
+    IOException failure = flushPending();
+    if (failure != null) {
+      synchronized (lock) {
+        backgroundFailure = chain(backgroundFailure, failure);
+      }
+    }
+  }
+
+  private void cancelScheduledFlush() {
+    if (scheduledFlush != null) {
+      scheduledFlush.cancel(false);
+      scheduledFlush = null;
+    }
+  }
+
+  private IOException flushPending() {
+    synchronized (flushLock) {
+      Map<Path, Pending<?>> batch;
+      synchronized (lock) {
+        cancelScheduledFlush();
+        if (pending.isEmpty()) {
+          return null;
+        }
+        batch = new LinkedHashMap<>(pending);
+        pending.clear();
+      }
+      IOException failure = commit(batch);
+      synchronized (lock) {
+        if (failure == null || pending.isEmpty()) {
+          retryNanos = 0;
+        } else if (!closing && scheduledFlush == null) {
+          retryNanos = retryNanos == 0 ? Math.max(delayNanos, MIN_RETRY_DELAY_NANOS) : Math.min(retryNanos * 2, MAX_RETRY_DELAY_NANOS);
+          scheduledFlush = scheduler.schedule(this::backgroundFlush, retryNanos, TimeUnit.NANOSECONDS);
+        }
+      }
+      return failure;
+    }
+  }
+
+  // Group commit: write every file, force them all, then rename them all into place
+  private IOException commit(Map<Path, Pending<?>> batch) {
+    IOException failure = null;
+    Map<Path, Path> staged = new LinkedHashMap<>();
+    for (Map.Entry<Path, Pending<?>> entry : batch.entrySet()) {
+      Path target = entry.getKey();
+      Path temp = null;
+      try {
+        Files.createDirectories(target.getParent());
+        temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+        writeTemp(temp, target, entry.getValue());
+        staged.put(target, temp);
+      } catch (SerializationException e) {
+        failure = chain(failure, e);
+        deleteQuietly(temp);
+      } catch (IOException e) {
+        failure = chain(failure, e);
+        deleteQuietly(temp);
+        requeue(target, entry.getValue());
+      }
+    }
+
+    if (fsync) {
+      for (Iterator<Map.Entry<Path, Path>> iterator = staged.entrySet().iterator(); iterator.hasNext(); ) {
+        Map.Entry<Path, Path> entry = iterator.next();
+        try {
+          force(entry.getValue(), StandardOpenOption.WRITE);
+        } catch (IOException e) {
+          failure = chain(failure, e);
+          deleteQuietly(entry.getValue());
+          requeue(entry.getKey(), batch.get(entry.getKey()));
+          iterator.remove();
+        }
+      }
+    }
+
+    Set<Path> directories = new LinkedHashSet<>();
+    for (Map.Entry<Path, Path> entry : staged.entrySet()) {
+      Path target = entry.getKey();
+      try {
+        Files.move(entry.getValue(), target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        directories.add(target.getParent());
+      } catch (IOException e) {
+        failure = chain(failure, e);
+        deleteQuietly(entry.getValue());
+        requeue(target, batch.get(target));
+      }
+    }
+
+    if (fsync) {
+      for (Path directory : directories) {
+        try {
+          force(directory, StandardOpenOption.READ);
+        } catch (IOException ignored) {
+          // Not every platform allows opening a directory to force its entries (Windows, for one)
+        }
+      }
+    }
+    return failure;
+  }
+
+  private <T> void writeTemp(Path temp, Path target, Pending<T> entry) throws IOException {
+    // The temp file's name does not carry the target's extension, so pick the compression from the target
+    WriteOptions options = WriteOptions.DEFAULT.withCompression(Compression.AUTO.resolve(target));
+    JsonMetrics.Probe probe = JsonMetrics.begin(backend, JsonOperation.Kind.WRITE, target, entry.type());
+    Exception failure = null;
+    try (GuardedOutputStream out = new GuardedOutputStream(JsonMetrics.track(probe, JsonFiles.newOutputStream(temp, options)))) {
+      try {
+        backend.output(entry.type(), entry.object(), options).write(out);
+      } catch (IOException | RuntimeException e) {
+        // Backends report their own failures as I/O errors too (Moshi adapters throw plain IOExceptions), so only a failure of the file counts as one
+        if (out.failure == null) {
+          throw new SerializationException(target, e);
+        }
+        throw e instanceof IOException ? (IOException) e : out.failure;
+      }
+    } catch (IOException e) {
+      failure = e;
+      throw e;
+    } finally {
+      JsonMetrics.end(probe, failure);
+    }
+  }
+
+  private void requeue(Path target, Pending<?> entry) {
+    synchronized (lock) {
+      pending.putIfAbsent(target, entry);
+    }
+  }
+
+  private static void force(Path path, StandardOpenOption option) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, option)) {
+      channel.force(true);
+    }
+  }
+
+  private static void deleteQuietly(Path path) {
+    if (path != null) {
+      try {
+        Files.deleteIfExists(path);
+      } catch (IOException ignored) {
+      }
+    }
+  }
+
+  private static IOException chain(IOException failure, IOException next) {
+    if (failure == null) {
+      return next;
+    }
+    failure.addSuppressed(next);
+    return failure;
+  }
+
+  private record Pending<T>(Type type, T object) {
+
+  }
+
+  // The object itself cannot be serialized, so writing it again would fail again
+  private static final class SerializationException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    SerializationException(Path target, Throwable cause) {
+      super("Failed to serialize " + target + "; the write was dropped", cause);
+    }
+
+  }
+
+  // Remembers whether the file underneath the backend failed
+  private static final class GuardedOutputStream extends FilterOutputStream {
+
+    private IOException failure;
+
+    GuardedOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      try {
+        out.write(b);
+      } catch (IOException e) {
+        throw failed(e);
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      try {
+        out.write(b, off, len);
+      } catch (IOException e) {
+        throw failed(e);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      try {
+        out.flush();
+      } catch (IOException e) {
+        throw failed(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        out.close();
+      } catch (IOException e) {
+        throw failed(e);
+      }
+    }
+
+    private IOException failed(IOException e) {
+      failure = e;
+      return e;
+    }
+
+  }
+
+}
@@ -0,0 +1,95 @@
+package com.aaronjyoder.util.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.Nonnull;
+
+/**
+ * Reads a file through read-only memory-mapped windows of up to 1 GiB, so files larger than a single {@link MappedByteBuffer} can be parsed without copying
+ * them through the kernel page cache into heap buffers.
+ */
+public final class MappedInputStream extends InputStream {
+
+  private static final long WINDOW_SIZE = 1L << 30;
+
+  private final FileChannel channel;
+  private final long size;
+  private long mapped;
+  private MappedByteBuffer window;
+
+  private MappedInputStream(FileChannel channel) throws IOException {
+    this.channel = channel;
+    this.size = channel.size();
+  }
+
+  @Nonnull
+  public static MappedInputStream open(@Nonnull Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      return new MappedInputStream(channel);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    return nextWindow() ? window.get() & 0xFF : -1;
+  }
+
+  @Override
+  public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!nextWindow()) {
+      return -1;
+    }
+    int count = Math.min(len, window.remaining());
+    window.get(b, off, count);
+    return count;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = 0;
+    while (skipped < n && nextWindow()) {
+      int count = (int) Math.min(n - skipped, window.remaining());
+      window.position(window.position() + count);
+      skipped += count;
+    }
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    long remaining = (window == null ? 0 : window.remaining()) + (size - mapped);
+    return (int) Math.min(remaining, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void close() throws IOException {
+    window = null;
+    channel.close();
+  }
+
+  private boolean nextWindow() throws IOException {
+    if (window != null && window.hasRemaining()) {
+      return true;
+    }
+    if (mapped >= size) {
+      return false;
+    }
+    long length = Math.min(WINDOW_SIZE, size - mapped);
+    window = channel.map(MapMode.READ_ONLY, mapped, length);
+    mapped += length;
+    return true;
+  }
+
+}
@@ -0,0 +1,48 @@
+package com.aaronjyoder.util.json;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * How a util reads a file. {@link #DEFAULT} inflates files named {@code *.gz} or {@code *.deflate} and reads everything else as plain text.
+ * <p>
+ * {@code lenient} is {@code null} to keep each backend's own default: Gson parses leniently, Moshi and Jackson are strict. A lenient Jackson reader accepts
+ * comments, single quotes, unquoted names, trailing commas and non-numeric numbers. {@code memoryMapped} reads through a {@link MappedInputStream}, in which
+ * case {@code bufferSize} only sizes the inflater's input buffer of a compressed file.
+ */
+public record ReadOptions(@Nullable Boolean lenient, int bufferSize, boolean memoryMapped, @Nonnull Compression compression) {
+
+  public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  public static final ReadOptions DEFAULT = new ReadOptions(null, DEFAULT_BUFFER_SIZE, false, Compression.AUTO);
+
+  public ReadOptions {
+    if (compression == null) {
+      throw new NullPointerException();
+    }
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("bufferSize must be positive");
+    }
+  }
+
+  @Nonnull
+  public ReadOptions withLenient(@Nullable Boolean lenient) {
+    return new ReadOptions(lenient, bufferSize, memoryMapped, compression);
+  }
+
+  @Nonnull
+  public ReadOptions withBufferSize(int bufferSize) {
+    return new ReadOptions(lenient, bufferSize, memoryMapped, compression);
+  }
+
+  @Nonnull
+  public ReadOptions withMemoryMapped(boolean memoryMapped) {
+    return new ReadOptions(lenient, bufferSize, memoryMapped, compression);
+  }
+
+  @Nonnull
+  public ReadOptions withCompression(@Nonnull Compression compression) {
+    return new ReadOptions(lenient, bufferSize, memoryMapped, compression);
+  }
+
+}
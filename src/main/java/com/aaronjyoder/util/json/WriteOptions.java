@@ -0,0 +1,102 @@
+package com.aaronjyoder.util.json;
+
+import java.util.zip.Deflater;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * How a util writes a file. {@link #DEFAULT} keeps the historical behaviour (two-space indentation, no fsync) and compresses only files named {@code *.gz} or
+ * {@code *.deflate}; {@link #COMPACT} drops all insignificant whitespace, which is what machine-read files should use.
+ * <p>
+ * {@code serializeNulls} is {@code null} to keep each backend's own default: Gson and Moshi omit null properties, Jackson writes them. {@code compressionLevel}
+ * is a {@link Deflater} level from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}.
+ * <p>
+ * {@code packed} writes collections of points and instants in the packed form described by
+ * {@link com.aaronjyoder.util.json.adapters.PackedAdapterFactory}, which every util reads back regardless of this option.
+ * <p>
+ * A positive {@code arrayIndexInterval} writes a {@link JsonArrayIndex} sidecar next to an uncompressed file that holds a top-level array, with an entry for
+ * every {@code arrayIndexInterval}-th element; {@code 0} writes none.
+ */
+public record WriteOptions(boolean indent, @Nullable Boolean serializeNulls, int bufferSize, @Nonnull Fsync fsync, @Nonnull Compression compression,
+                           int compressionLevel, boolean packed, int arrayIndexInterval) {
+
+  public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  public static final WriteOptions DEFAULT = new WriteOptions(true, null, DEFAULT_BUFFER_SIZE, Fsync.NONE, Compression.AUTO,
+      Deflater.DEFAULT_COMPRESSION, false, 0);
+  public static final WriteOptions COMPACT = DEFAULT.withIndent(false);
+
+  /**
+   * What to force to the storage device before {@code write} returns.
+   */
+  public enum Fsync {
+    /**
+     * Leave flushing to the operating system.
+     */
+    NONE,
+    /**
+     * Force the file contents, like {@code fdatasync}.
+     */
+    DATA,
+    /**
+     * Force the file contents and metadata, like {@code fsync}.
+     */
+    ALL
+  }
+
+  public WriteOptions {
+    if (fsync == null || compression == null) {
+      throw new NullPointerException();
+    }
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("bufferSize must be positive");
+    }
+    if (compressionLevel != Deflater.DEFAULT_COMPRESSION && (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)) {
+      throw new IllegalArgumentException("compressionLevel must be between 0 and 9, or -1");
+    }
+    if (arrayIndexInterval < 0) {
+      throw new IllegalArgumentException("arrayIndexInterval must not be negative");
+    }
+  }
+
+  @Nonnull
+  public WriteOptions withIndent(boolean indent) {
+    return new WriteOptions(indent, serializeNulls, bufferSize, fsync, compression, compressionLevel, packed, arrayIndexInterval);
+  }
+
+  @Nonnull
+  public WriteOptions withSerializeNulls(@Nullable Boolean serializeNulls) {
+    return new WriteOptions(indent, serializeNulls, bufferSize, fsync, compression, compressionLevel, packed, arrayIndexInterval);
+  }
+
+  @Nonnull
+  public WriteOptions withBufferSize(int bufferSize) {
+    return new WriteOptions(indent, serializeNulls, bufferSize, fsync, compression, compressionLevel, packed, arrayIndexInterval);
+  }
+
+  @Nonnull
+  public WriteOptions withFsync(@Nonnull Fsync fsync) {
+    return new WriteOptions(indent, serializeNulls, bufferSize, fsync, compression, compressionLevel, packed, arrayIndexInterval);
+  }
+
+  @Nonnull
+  public WriteOptions withCompression(@Nonnull Compression compression) {
+    return new WriteOptions(indent, serializeNulls, bufferSize, fsync, compression, compressionLevel, packed, arrayIndexInterval);
+  }
+
+  @Nonnull
+  public WriteOptions withCompressionLevel(int compressionLevel) {
+    return new WriteOptions(indent, serializeNulls, bufferSize, fsync, compression, compressionLevel, packed, arrayIndexInterval);
+  }
+
+  @Nonnull
+  public WriteOptions withPacked(boolean packed) {
+    return new WriteOptions(indent, serializeNulls, bufferSize, fsync, compression, compressionLevel, packed, arrayIndexInterval);
+  }
+
+  @Nonnull
+  public WriteOptions withArrayIndexInterval(int arrayIndexInterval) {
+    return new WriteOptions(indent, serializeNulls, bufferSize, fsync, compression, compressionLevel, packed, arrayIndexInterval);
+  }
+
+}
@@ -1,41 +1,108 @@
 package com.aaronjyoder.util.json.adapters;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
-import com.squareup.moshi.FromJson;
-import com.squareup.moshi.ToJson;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
 import java.awt.Color;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.util.Set;
 
-public class ColorAdapter implements JsonSerializer<Color>, JsonDeserializer<Color> {
+public class ColorAdapter extends TypeAdapter<Color> implements JsonAdapter.Factory {
 
   // Moshi
 
-  @ToJson
-  Integer toJson(Color rgb) {
-    return rgb.getRGB();
-  }
+  private static final JsonAdapter<Color> MOSHI_ADAPTER = new JsonAdapter<Color>() {
+    @Override
+    public Color fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+      return new Color(reader.nextInt());
+    }
+
+    @Override
+    public void toJson(com.squareup.moshi.JsonWriter writer, Color value) throws IOException {
+      writer.value(value.getRGB());
+    }
+
+    @Override
+    public String toString() {
+      return "JsonAdapter(Color)";
+    }
+  }.nullSafe();
 
-  @FromJson
-  Color fromJson(Integer rgb) {
-    return new Color(rgb);
+  @Override
+  public JsonAdapter<?> create(Type type, Set<? extends Annotation> annotations, Moshi moshi) {
+    return type == Color.class && annotations.isEmpty() ? MOSHI_ADAPTER : null;
   }
 
   // Gson
 
   @Override
-  public JsonElement serialize(Color src, Type typeOfSrc, JsonSerializationContext context) {
-    return new JsonPrimitive(src.getRGB());
+  public void write(JsonWriter out, Color value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.value(value.getRGB());
   }
 
   @Override
-  public Color deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-    return new Color(json.getAsInt());
+  public Color read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return new Color(in.nextInt());
+  }
+
+  // Jackson
+
+  static final class JacksonSerializer extends StdSerializer<Color> {
+
+    private static final long serialVersionUID = 1L;
+
+    JacksonSerializer() {
+      super(Color.class);
+    }
+
+    @Override
+    public void serialize(Color value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      gen.writeNumber(value.getRGB());
+    }
+
+    @Override
+    public void serializeWithType(Color value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+      WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(value, com.fasterxml.jackson.core.JsonToken.VALUE_NUMBER_INT));
+      serialize(value, gen, provider);
+      typeSer.writeTypeSuffix(gen, typeId);
+    }
+
+  }
+
+  static final class JacksonDeserializer extends StdDeserializer<Color> {
+
+    private static final long serialVersionUID = 1L;
+
+    JacksonDeserializer() {
+      super(Color.class);
+    }
+
+    @Override
+    public Color deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      return new Color(_parseIntPrimitive(p, ctxt));
+    }
+
   }
 
 }
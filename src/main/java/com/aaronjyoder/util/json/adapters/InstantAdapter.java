@@ -1,58 +1,178 @@
 package com.aaronjyoder.util.json.adapters;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
-import com.squareup.moshi.FromJson;
-import com.squareup.moshi.ToJson;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonTokenId;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Set;
 
-public final class InstantAdapter implements JsonSerializer<Instant>, JsonDeserializer<Instant> {
+public final class InstantAdapter extends TypeAdapter<Instant> implements JsonAdapter.Factory {
+
+  private static final String SECONDS = "seconds";
+  private static final String NANOS = "nanos";
 
   // Moshi
 
-  @ToJson
-  InstantJson toJson(Instant instant) {
-    return new InstantJson(instant.getEpochSecond(), instant.getNano());
-  }
+  private static final com.squareup.moshi.JsonReader.Options NAMES = com.squareup.moshi.JsonReader.Options.of(SECONDS, NANOS);
+
+  private static final JsonAdapter<Instant> MOSHI_ADAPTER = new JsonAdapter<Instant>() {
+    @Override
+    public Instant fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+      long seconds = 0;
+      long nanos = 0;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.selectName(NAMES)) {
+          case 0 -> seconds = reader.nextLong();
+          case 1 -> nanos = reader.nextLong();
+          default -> {
+            reader.skipName();
+            reader.skipValue();
+          }
+        }
+      }
+      reader.endObject();
+      return Instant.ofEpochSecond(seconds, nanos);
+    }
+
+    @Override
+    public void toJson(com.squareup.moshi.JsonWriter writer, Instant value) throws IOException {
+      writer.beginObject();
+      writer.name(SECONDS).value(value.getEpochSecond());
+      writer.name(NANOS).value(value.getNano());
+      writer.endObject();
+    }
+
+    @Override
+    public String toString() {
+      return "JsonAdapter(Instant)";
+    }
+  }.nullSafe();
 
-  @FromJson
-  Instant fromJson(InstantJson instantJson) {
-    return Instant.ofEpochSecond(instantJson.seconds, instantJson.nanos);
+  @Override
+  public JsonAdapter<?> create(Type type, Set<? extends Annotation> annotations, Moshi moshi) {
+    return type == Instant.class && annotations.isEmpty() ? MOSHI_ADAPTER : null;
   }
 
   // Gson
 
   @Override
-  public JsonElement serialize(Instant src, Type srcType, JsonSerializationContext context) {
-    JsonObject instant = new JsonObject();
-    instant.add("seconds", new JsonPrimitive(src.getEpochSecond()));
-    instant.add("nanos", new JsonPrimitive(src.getNano()));
-    return instant;
+  public void write(JsonWriter out, Instant value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name(SECONDS).value(value.getEpochSecond());
+    out.name(NANOS).value(value.getNano());
+    out.endObject();
   }
 
   @Override
-  public Instant deserialize(JsonElement json, Type type, JsonDeserializationContext context) throws JsonParseException {
-    JsonObject instant = json.getAsJsonObject();
-    return Instant.ofEpochSecond(instant.get("seconds").getAsLong(), instant.get("nanos").getAsLong());
+  public Instant read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    long seconds = 0;
+    long nanos = 0;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case SECONDS -> seconds = in.nextLong();
+        case NANOS -> nanos = in.nextLong();
+        default -> in.skipValue();
+      }
+    }
+    in.endObject();
+    return Instant.ofEpochSecond(seconds, nanos);
   }
 
-}
+  // Jackson
+
+  static final class JacksonSerializer extends StdSerializer<Instant> {
+
+    private static final long serialVersionUID = 1L;
 
-final class InstantJson {
+    JacksonSerializer() {
+      super(Instant.class);
+    }
 
-  final long seconds;
-  final long nanos;
+    @Override
+    public void serialize(Instant value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      gen.writeStartObject(value);
+      writeFields(value, gen);
+      gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(Instant value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+      WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(value, com.fasterxml.jackson.core.JsonToken.START_OBJECT));
+      writeFields(value, gen);
+      typeSer.writeTypeSuffix(gen, typeId);
+    }
+
+    private static void writeFields(Instant value, JsonGenerator gen) throws IOException {
+      gen.writeNumberField(SECONDS, value.getEpochSecond());
+      gen.writeNumberField(NANOS, value.getNano());
+    }
 
-  public InstantJson(long seconds, long nanos) {
-    this.seconds = seconds;
-    this.nanos = nanos;
   }
 
-}
\ No newline at end of file
+  // Also accepts the decimal seconds and ISO-8601 strings written by Jackson's JavaTimeModule, so existing files still read
+  static final class JacksonDeserializer extends StdDeserializer<Instant> {
+
+    private static final long serialVersionUID = 1L;
+
+    JacksonDeserializer() {
+      super(Instant.class);
+    }
+
+    @Override
+    public Instant deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      switch (p.currentTokenId()) {
+        case JsonTokenId.ID_START_OBJECT:
+        case JsonTokenId.ID_FIELD_NAME:
+          long seconds = 0;
+          long nanos = 0;
+          for (String name = p.currentTokenId() == JsonTokenId.ID_START_OBJECT ? p.nextFieldName() : p.currentName(); name != null; name = p.nextFieldName()) {
+            p.nextToken();
+            switch (name) {
+              case SECONDS -> seconds = p.getValueAsLong();
+              case NANOS -> nanos = p.getValueAsLong();
+              default -> p.skipChildren();
+            }
+          }
+          return Instant.ofEpochSecond(seconds, nanos);
+        case JsonTokenId.ID_NUMBER_INT:
+          return Instant.ofEpochSecond(p.getLongValue());
+        case JsonTokenId.ID_NUMBER_FLOAT:
+          BigDecimal decimal = p.getDecimalValue();
+          long wholeSeconds = decimal.longValue();
+          return Instant.ofEpochSecond(wholeSeconds, decimal.subtract(BigDecimal.valueOf(wholeSeconds)).movePointRight(9).longValue());
+        case JsonTokenId.ID_STRING:
+          return Instant.parse(p.getText().trim());
+        default:
+          return (Instant) ctxt.handleUnexpectedToken(Instant.class, p);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,29 @@
+package com.aaronjyoder.util.json.adapters;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import java.awt.Color;
+import java.awt.Point;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Registers the Jackson halves of {@link InstantAdapter}, {@link UUIDAdapter}, {@link PointAdapter} and {@link ColorAdapter}, so that Jackson-based utils
+ * read and write these types exactly like the Gson and Moshi utils do. Register it after {@code JavaTimeModule} so that its {@link Instant} handling wins.
+ */
+public final class JacksonAdapterModule extends SimpleModule {
+
+  private static final long serialVersionUID = 1L;
+
+  public JacksonAdapterModule() {
+    super("JsonUtilitiesAdapters");
+    addSerializer(Instant.class, new InstantAdapter.JacksonSerializer());
+    addDeserializer(Instant.class, new InstantAdapter.JacksonDeserializer());
+    addSerializer(UUID.class, new UUIDAdapter.JacksonSerializer());
+    addDeserializer(UUID.class, new UUIDAdapter.JacksonDeserializer());
+    addSerializer(Point.class, new PointAdapter.JacksonSerializer());
+    addDeserializer(Point.class, new PointAdapter.JacksonDeserializer());
+    addSerializer(Color.class, new ColorAdapter.JacksonSerializer());
+    addDeserializer(Color.class, new ColorAdapter.JacksonDeserializer());
+  }
+
+}
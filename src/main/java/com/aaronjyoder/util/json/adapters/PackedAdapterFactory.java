@@ -0,0 +1,481 @@
+package com.aaronjyoder.util.json.adapters;
+
+import com.aaronjyoder.util.json.WriteOptions;
+import com.aaronjyoder.util.json.collections.LongList;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonTokenId;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.Moshi;
+import java.awt.Point;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Packed encoding for collections of {@link Point} and {@link Instant}. Instead of an array of objects that repeats every property name, a packed collection is
+ * written as one object holding a parallel array per property, such as {@code {"x":[1,5],"y":[2,6]}} for {@code List<Point>} or
+ * {@code {"seconds":[...],"nanos":[...]}} for {@code List<Instant>}.
+ * <p>
+ * Reading always accepts both the packed and the plain array form, so the factory is registered by default in every util and only writes that ask for
+ * {@link WriteOptions#packed()} produce the packed form. A collection that contains {@code null} is still written as a plain array. The declared collection
+ * type must be one that an {@link ArrayList} can be assigned to, such as {@code List} or {@code Collection}, and must be passed as a {@link Type} so the element
+ * type is known. Single values keep their regular object form.
+ */
+public final class PackedAdapterFactory implements TypeAdapterFactory, JsonAdapter.Factory {
+
+  /**
+   * Jackson writer attribute that turns on packed output for one {@link ObjectWriter}, see {@link ObjectWriter#withAttribute(Object, Object)}.
+   */
+  public static final String PACKED = PackedAdapterFactory.class.getName() + ".packed";
+
+  private final boolean pack;
+
+  /**
+   * Creates a factory that reads both forms and writes plain arrays.
+   */
+  public PackedAdapterFactory() {
+    this(false);
+  }
+
+  /**
+   * Creates a factory that reads both forms and writes the packed form if {@code pack} is set.
+   */
+  public PackedAdapterFactory(boolean pack) {
+    this.pack = pack;
+  }
+
+  // Moshi
+
+  @Override
+  public JsonAdapter<?> create(Type type, Set<? extends Annotation> annotations, Moshi moshi) {
+    Layout layout = annotations.isEmpty() ? Layout.of(type) : null;
+    if (layout == null) {
+      return null;
+    }
+    JsonAdapter<Collection<?>> delegate = moshi.nextAdapter(this, type, annotations);
+    return new JsonAdapter<Collection<?>>() {
+      @Override
+      public Collection<?> fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+        if (reader.peek() != com.squareup.moshi.JsonReader.Token.BEGIN_OBJECT) {
+          return delegate.fromJson(reader);
+        }
+        LongList first = null;
+        LongList second = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+          String name = reader.nextName();
+          if (name.equals(layout.first)) {
+            first = readLongs(reader);
+          } else if (name.equals(layout.second)) {
+            second = readLongs(reader);
+          } else {
+            reader.skipValue();
+          }
+        }
+        reader.endObject();
+        List<Object> values = layout.unpack(first, second);
+        if (values == null) {
+          throw new JsonDataException(layout.mismatch() + " at path " + reader.getPath());
+        }
+        return values;
+      }
+
+      @Override
+      public void toJson(com.squareup.moshi.JsonWriter writer, Collection<?> value) throws IOException {
+        if (!pack || !packable(value)) {
+          delegate.toJson(writer, value);
+          return;
+        }
+        writer.beginObject();
+        writer.name(layout.first).beginArray();
+        for (Object element : value) {
+          writer.value(layout.first(element));
+        }
+        writer.endArray();
+        writer.name(layout.second).beginArray();
+        for (Object element : value) {
+          writer.value(layout.second(element));
+        }
+        writer.endArray();
+        writer.endObject();
+      }
+
+      @Override
+      public String toString() {
+        return delegate + ".packed()";
+      }
+    };
+  }
+
+  private static LongList readLongs(com.squareup.moshi.JsonReader reader) throws IOException {
+    LongList list = new LongList();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      list.addLong(reader.nextLong());
+    }
+    reader.endArray();
+    return list;
+  }
+
+  // Gson
+
+  @Override
+  @SuppressWarnings("unchecked") // the returned adapter handles every collection type that Layout.of accepts
+  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+    Layout layout = Layout.of(type.getType());
+    if (layout == null) {
+      return null;
+    }
+    TypeAdapter<Collection<?>> delegate = (TypeAdapter<Collection<?>>) gson.getDelegateAdapter(this, type);
+    return (TypeAdapter<T>) new TypeAdapter<Collection<?>>() {
+      @Override
+      public void write(JsonWriter out, Collection<?> value) throws IOException {
+        if (!pack || !packable(value)) {
+          delegate.write(out, value);
+          return;
+        }
+        out.beginObject();
+        out.name(layout.first).beginArray();
+        for (Object element : value) {
+          out.value(layout.first(element));
+        }
+        out.endArray();
+        out.name(layout.second).beginArray();
+        for (Object element : value) {
+          out.value(layout.second(element));
+        }
+        out.endArray();
+        out.endObject();
+      }
+
+      @Override
+      public Collection<?> read(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+          return delegate.read(in);
+        }
+        LongList first = null;
+        LongList second = null;
+        in.beginObject();
+        while (in.hasNext()) {
+          String name = in.nextName();
+          if (name.equals(layout.first)) {
+            first = readLongs(in);
+          } else if (name.equals(layout.second)) {
+            second = readLongs(in);
+          } else {
+            in.skipValue();
+          }
+        }
+        in.endObject();
+        List<Object> values = layout.unpack(first, second);
+        if (values == null) {
+          throw new JsonSyntaxException(layout.mismatch() + " at path " + in.getPath());
+        }
+        return values;
+      }
+    };
+  }
+
+  private static LongList readLongs(JsonReader in) throws IOException {
+    LongList list = new LongList();
+    in.beginArray();
+    while (in.hasNext()) {
+      list.addLong(in.nextLong());
+    }
+    in.endArray();
+    return list;
+  }
+
+  // Jackson
+
+  /**
+   * Packs when this factory was created with {@code pack} set, or when the writer carries the {@link #PACKED} attribute.
+   */
+  public Module jacksonModule() {
+    SimpleModule module = new SimpleModule(PackedAdapterFactory.class.getSimpleName());
+    module.setSerializerModifier(new BeanSerializerModifier() {
+      @Override
+      public JsonSerializer<?> modifyCollectionSerializer(SerializationConfig config, CollectionType valueType, BeanDescription beanDesc,
+          JsonSerializer<?> serializer) {
+        // Properties resolve their serializer from the runtime class, so whether the declared type can be read back is decided in createContextual
+        Layout layout = Layout.ofElement(valueType.getContentType().getRawClass());
+        boolean readable = Layout.of(valueType.getRawClass(), valueType.getContentType().getRawClass()) != null;
+        return layout == null ? serializer : new JacksonSerializer(layout, serializer, pack, readable);
+      }
+    });
+    module.setDeserializerModifier(new BeanDeserializerModifier() {
+      @Override
+      public JsonDeserializer<?> modifyCollectionDeserializer(DeserializationConfig config, CollectionType type, BeanDescription beanDesc,
+          JsonDeserializer<?> deserializer) {
+        Layout layout = Layout.of(type.getRawClass(), type.getContentType().getRawClass());
+        return layout == null ? deserializer : new JacksonDeserializer(layout, deserializer);
+      }
+    });
+    return module;
+  }
+
+  private static final class JacksonSerializer extends StdSerializer<Collection<?>> implements ContextualSerializer, ResolvableSerializer {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Layout layout;
+    private final JsonSerializer<Object> delegate;
+    private final boolean pack;
+    private final boolean readable;
+
+    @SuppressWarnings("unchecked") // the delegate was built for the same collection type
+    private JacksonSerializer(Layout layout, JsonSerializer<?> delegate, boolean pack, boolean readable) {
+      super(Collection.class, false);
+      this.layout = layout;
+      this.delegate = (JsonSerializer<Object>) delegate;
+      this.pack = pack;
+      this.readable = readable;
+    }
+
+    @Override
+    public void serialize(Collection<?> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      if (!readable || !(pack || Boolean.TRUE.equals(provider.getAttribute(PACKED))) || !packable(value)) {
+        delegate.serialize(value, gen, provider);
+        return;
+      }
+      gen.writeStartObject(value);
+      gen.writeFieldName(layout.first);
+      gen.writeStartArray(value, value.size());
+      for (Object element : value) {
+        gen.writeNumber(layout.first(element));
+      }
+      gen.writeEndArray();
+      gen.writeFieldName(layout.second);
+      gen.writeStartArray(value, value.size());
+      for (Object element : value) {
+        gen.writeNumber(layout.second(element));
+      }
+      gen.writeEndArray();
+      gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(Collection<?> value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+      delegate.serializeWithType(value, gen, provider, typeSer);
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, Collection<?> value) {
+      return delegate.isEmpty(provider, value);
+    }
+
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException {
+      JsonSerializer<?> contextual = provider.handleSecondaryContextualization(delegate, property);
+      boolean declaredReadable = property == null ? readable : Layout.of(property.getType().getRawClass(), layout.elementType) != null;
+      return contextual == delegate && declaredReadable == readable ? this : new JacksonSerializer(layout, contextual, pack, declaredReadable);
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+      if (delegate instanceof ResolvableSerializer resolvable) {
+        resolvable.resolve(provider);
+      }
+    }
+
+  }
+
+  private static final class JacksonDeserializer extends DelegatingDeserializer {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Layout layout;
+
+    private JacksonDeserializer(Layout layout, JsonDeserializer<?> delegate) {
+      super(delegate);
+      this.layout = layout;
+    }
+
+    @Override
+    protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+      return new JacksonDeserializer(layout, newDelegatee);
+    }
+
+    @Override
+    public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      String name;
+      if (p.currentTokenId() == JsonTokenId.ID_START_OBJECT) {
+        name = p.nextFieldName();
+      } else if (p.currentTokenId() == JsonTokenId.ID_FIELD_NAME) {
+        name = p.currentName();
+      } else {
+        return super.deserialize(p, ctxt);
+      }
+      LongList first = null;
+      LongList second = null;
+      for (; name != null; name = p.nextFieldName()) {
+        p.nextToken();
+        if (name.equals(layout.first)) {
+          first = readLongs(p, ctxt);
+        } else if (name.equals(layout.second)) {
+          second = readLongs(p, ctxt);
+        } else {
+          p.skipChildren();
+        }
+      }
+      List<Object> values = layout.unpack(first, second);
+      return values != null ? values : ctxt.reportInputMismatch(this, layout.mismatch());
+    }
+
+    private static LongList readLongs(JsonParser p, DeserializationContext ctxt) throws IOException {
+      if (!p.isExpectedStartArrayToken()) {
+        return (LongList) ctxt.handleUnexpectedToken(LongList.class, p);
+      }
+      LongList list = new LongList();
+      while (p.nextToken() != com.fasterxml.jackson.core.JsonToken.END_ARRAY) {
+        list.addLong(p.getLongValue());
+      }
+      return list;
+    }
+
+  }
+
+  // Layouts
+
+  private static boolean packable(Collection<?> value) {
+    if (value == null) {
+      return false;
+    }
+    for (Object element : value) {
+      if (element == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private enum Layout {
+    POINT(Point.class, "x", "y") {
+      @Override
+      long first(Object value) {
+        return ((Point) value).x;
+      }
+
+      @Override
+      long second(Object value) {
+        return ((Point) value).y;
+      }
+
+      @Override
+      Object create(long first, long second) {
+        return new Point(Math.toIntExact(first), Math.toIntExact(second));
+      }
+    },
+    INSTANT(Instant.class, "seconds", "nanos") {
+      @Override
+      long first(Object value) {
+        return ((Instant) value).getEpochSecond();
+      }
+
+      @Override
+      long second(Object value) {
+        return ((Instant) value).getNano();
+      }
+
+      @Override
+      Object create(long first, long second) {
+        return Instant.ofEpochSecond(first, second);
+      }
+    };
+
+    private final Class<?> elementType;
+    private final String first;
+    private final String second;
+
+    Layout(Class<?> elementType, String first, String second) {
+      this.elementType = elementType;
+      this.first = first;
+      this.second = second;
+    }
+
+    abstract long first(Object value);
+
+    abstract long second(Object value);
+
+    abstract Object create(long first, long second);
+
+    // Null for null or missing columns of different lengths
+    List<Object> unpack(LongList first, LongList second) {
+      if (first == null || second == null || first.size() != second.size()) {
+        return null;
+      }
+      List<Object> values = new ArrayList<>(first.size());
+      for (int i = 0; i < first.size(); i++) {
+        values.add(create(first.getLong(i), second.getLong(i)));
+      }
+      return values;
+    }
+
+    String mismatch() {
+      return "Packed " + elementType.getSimpleName() + " collection needs \"" + first + "\" and \"" + second + "\" arrays of the same length";
+    }
+
+    static Layout of(Type type) {
+      if (!(type instanceof ParameterizedType parameterized) || !(parameterized.getRawType() instanceof Class<?> rawType)) {
+        return null;
+      }
+      Type elementType = parameterized.getActualTypeArguments()[0];
+      if (elementType instanceof WildcardType wildcard && wildcard.getLowerBounds().length == 0) {
+        elementType = wildcard.getUpperBounds()[0];
+      }
+      return of(rawType, elementType);
+    }
+
+    static Layout of(Class<?> rawType, Type elementType) {
+      return Collection.class.isAssignableFrom(rawType) && rawType.isAssignableFrom(ArrayList.class) ? ofElement(elementType) : null;
+    }
+
+    static Layout ofElement(Type elementType) {
+      for (Layout layout : values()) {
+        if (layout.elementType == elementType) {
+          return layout;
+        }
+      }
+      return null;
+    }
+  }
+
+}
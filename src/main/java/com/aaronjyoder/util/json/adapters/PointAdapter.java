@@ -1,58 +1,170 @@
 package com.aaronjyoder.util.json.adapters;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
-import com.squareup.moshi.FromJson;
-import com.squareup.moshi.ToJson;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonTokenId;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
 import java.awt.Point;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.util.Set;
 
-public final class PointAdapter implements JsonSerializer<Point>, JsonDeserializer<Point> {
+public final class PointAdapter extends TypeAdapter<Point> implements JsonAdapter.Factory {
+
+  private static final String X = "x";
+  private static final String Y = "y";
 
   // Moshi
 
-  @ToJson
-  PointJson toJson(Point point) {
-    return new PointJson(point.x, point.y);
-  }
+  private static final com.squareup.moshi.JsonReader.Options NAMES = com.squareup.moshi.JsonReader.Options.of(X, Y);
+
+  private static final JsonAdapter<Point> MOSHI_ADAPTER = new JsonAdapter<Point>() {
+    @Override
+    public Point fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+      int x = 0;
+      int y = 0;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.selectName(NAMES)) {
+          case 0 -> x = reader.nextInt();
+          case 1 -> y = reader.nextInt();
+          default -> {
+            reader.skipName();
+            reader.skipValue();
+          }
+        }
+      }
+      reader.endObject();
+      return new Point(x, y);
+    }
+
+    @Override
+    public void toJson(com.squareup.moshi.JsonWriter writer, Point value) throws IOException {
+      writer.beginObject();
+      writer.name(X).value(value.x);
+      writer.name(Y).value(value.y);
+      writer.endObject();
+    }
+
+    @Override
+    public String toString() {
+      return "JsonAdapter(Point)";
+    }
+  }.nullSafe();
 
-  @FromJson
-  Point fromJson(PointJson pointJson) {
-    return new Point(pointJson.x, pointJson.y);
+  @Override
+  public JsonAdapter<?> create(Type type, Set<? extends Annotation> annotations, Moshi moshi) {
+    return type == Point.class && annotations.isEmpty() ? MOSHI_ADAPTER : null;
   }
 
   // Gson
 
   @Override
-  public JsonElement serialize(Point src, Type srcType, JsonSerializationContext context) {
-    JsonObject point = new JsonObject();
-    point.add("x", new JsonPrimitive(src.x));
-    point.add("y", new JsonPrimitive(src.y));
-    return point;
+  public void write(JsonWriter out, Point value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name(X).value(value.x);
+    out.name(Y).value(value.y);
+    out.endObject();
   }
 
   @Override
-  public Point deserialize(JsonElement json, Type type, JsonDeserializationContext context) throws JsonParseException {
-    JsonObject point = json.getAsJsonObject();
-    return new Point(point.get("x").getAsInt(), point.get("y").getAsInt());
+  public Point read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    int x = 0;
+    int y = 0;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case X -> x = in.nextInt();
+        case Y -> y = in.nextInt();
+        default -> in.skipValue();
+      }
+    }
+    in.endObject();
+    return new Point(x, y);
   }
 
-}
+  // Jackson
+
+  static final class JacksonSerializer extends StdSerializer<Point> {
+
+    private static final long serialVersionUID = 1L;
+
+    JacksonSerializer() {
+      super(Point.class);
+    }
+
+    @Override
+    public void serialize(Point value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      gen.writeStartObject(value);
+      writeFields(value, gen);
+      gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(Point value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+      WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(value, com.fasterxml.jackson.core.JsonToken.START_OBJECT));
+      writeFields(value, gen);
+      typeSer.writeTypeSuffix(gen, typeId);
+    }
+
+    private static void writeFields(Point value, JsonGenerator gen) throws IOException {
+      gen.writeNumberField(X, value.x);
+      gen.writeNumberField(Y, value.y);
+    }
+
+  }
+
+  static final class JacksonDeserializer extends StdDeserializer<Point> {
+
+    private static final long serialVersionUID = 1L;
 
-final class PointJson {
+    JacksonDeserializer() {
+      super(Point.class);
+    }
 
-  final int x;
-  final int y;
+    @Override
+    public Point deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      String name;
+      if (p.currentTokenId() == JsonTokenId.ID_START_OBJECT) {
+        name = p.nextFieldName();
+      } else if (p.currentTokenId() == JsonTokenId.ID_FIELD_NAME) {
+        name = p.currentName();
+      } else {
+        return (Point) ctxt.handleUnexpectedToken(Point.class, p);
+      }
+      int x = 0;
+      int y = 0;
+      for (; name != null; name = p.nextFieldName()) {
+        p.nextToken();
+        switch (name) {
+          case X -> x = p.getValueAsInt();
+          case Y -> y = p.getValueAsInt();
+          default -> p.skipChildren();
+        }
+      }
+      return new Point(x, y);
+    }
 
-  public PointJson(int x, int y) {
-    this.x = x;
-    this.y = y;
   }
 
 }
@@ -0,0 +1,581 @@
+package com.aaronjyoder.util.json.adapters;
+
+import com.aaronjyoder.util.json.collections.DoubleList;
+import com.aaronjyoder.util.json.collections.IntList;
+import com.aaronjyoder.util.json.collections.LongList;
+import com.aaronjyoder.util.json.collections.StringDoubleMap;
+import com.aaronjyoder.util.json.collections.StringIntMap;
+import com.aaronjyoder.util.json.collections.StringLongMap;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonTokenId;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binds {@code int[]}, {@code long[]}, {@code double[]}, {@link IntList}, {@link LongList}, {@link DoubleList}, {@link StringIntMap}, {@link StringLongMap} and
+ * {@link StringDoubleMap} straight from the token stream into primitive storage, so numeric series of any length are read and written without boxing an
+ * element. Arrays are written as JSON arrays and maps as JSON objects, exactly like the reflective adapters would.
+ * <p>
+ * Jackson already binds primitive arrays without boxing, so {@link #jacksonModule()} only covers the list and map types.
+ */
+public final class PrimitiveAdapterFactory implements TypeAdapterFactory, JsonAdapter.Factory {
+
+  // Moshi
+
+  private static final Map<Class<?>, JsonAdapter<?>> MOSHI_ADAPTERS = Map.of(
+      int[].class, new JsonAdapter<int[]>() {
+        @Override
+        public int[] fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+          return readInts(reader).toIntArray();
+        }
+
+        @Override
+        public void toJson(com.squareup.moshi.JsonWriter writer, int[] value) throws IOException {
+          writer.beginArray();
+          for (int element : value) {
+            writer.value(element);
+          }
+          writer.endArray();
+        }
+      }.nullSafe(),
+      long[].class, new JsonAdapter<long[]>() {
+        @Override
+        public long[] fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+          return readLongs(reader).toLongArray();
+        }
+
+        @Override
+        public void toJson(com.squareup.moshi.JsonWriter writer, long[] value) throws IOException {
+          writer.beginArray();
+          for (long element : value) {
+            writer.value(element);
+          }
+          writer.endArray();
+        }
+      }.nullSafe(),
+      double[].class, new JsonAdapter<double[]>() {
+        @Override
+        public double[] fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+          return readDoubles(reader).toDoubleArray();
+        }
+
+        @Override
+        public void toJson(com.squareup.moshi.JsonWriter writer, double[] value) throws IOException {
+          writer.beginArray();
+          for (double element : value) {
+            writer.value(element);
+          }
+          writer.endArray();
+        }
+      }.nullSafe(),
+      IntList.class, new JsonAdapter<IntList>() {
+        @Override
+        public IntList fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+          return readInts(reader);
+        }
+
+        @Override
+        public void toJson(com.squareup.moshi.JsonWriter writer, IntList value) throws IOException {
+          writer.beginArray();
+          for (int i = 0; i < value.size(); i++) {
+            writer.value(value.getInt(i));
+          }
+          writer.endArray();
+        }
+      }.nullSafe(),
+      LongList.class, new JsonAdapter<LongList>() {
+        @Override
+        public LongList fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+          return readLongs(reader);
+        }
+
+        @Override
+        public void toJson(com.squareup.moshi.JsonWriter writer, LongList value) throws IOException {
+          writer.beginArray();
+          for (int i = 0; i < value.size(); i++) {
+            writer.value(value.getLong(i));
+          }
+          writer.endArray();
+        }
+      }.nullSafe(),
+      DoubleList.class, new JsonAdapter<DoubleList>() {
+        @Override
+        public DoubleList fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+          return readDoubles(reader);
+        }
+
+        @Override
+        public void toJson(com.squareup.moshi.JsonWriter writer, DoubleList value) throws IOException {
+          writer.beginArray();
+          for (int i = 0; i < value.size(); i++) {
+            writer.value(value.getDouble(i));
+          }
+          writer.endArray();
+        }
+      }.nullSafe(),
+      StringIntMap.class, new JsonAdapter<StringIntMap>() {
+        @Override
+        public StringIntMap fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+          StringIntMap map = new StringIntMap();
+          reader.beginObject();
+          while (reader.hasNext()) {
+            map.put(reader.nextName(), reader.nextInt());
+          }
+          reader.endObject();
+          return map;
+        }
+
+        @Override
+        public void toJson(com.squareup.moshi.JsonWriter writer, StringIntMap value) throws IOException {
+          writer.beginObject();
+          for (int i = 0; i < value.size(); i++) {
+            writer.name(value.keyAt(i)).value(value.valueAt(i));
+          }
+          writer.endObject();
+        }
+      }.nullSafe(),
+      StringLongMap.class, new JsonAdapter<StringLongMap>() {
+        @Override
+        public StringLongMap fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+          StringLongMap map = new StringLongMap();
+          reader.beginObject();
+          while (reader.hasNext()) {
+            map.put(reader.nextName(), reader.nextLong());
+          }
+          reader.endObject();
+          return map;
+        }
+
+        @Override
+        public void toJson(com.squareup.moshi.JsonWriter writer, StringLongMap value) throws IOException {
+          writer.beginObject();
+          for (int i = 0; i < value.size(); i++) {
+            writer.name(value.keyAt(i)).value(value.valueAt(i));
+          }
+          writer.endObject();
+        }
+      }.nullSafe(),
+      StringDoubleMap.class, new JsonAdapter<StringDoubleMap>() {
+        @Override
+        public StringDoubleMap fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+          StringDoubleMap map = new StringDoubleMap();
+          reader.beginObject();
+          while (reader.hasNext()) {
+            map.put(reader.nextName(), reader.nextDouble());
+          }
+          reader.endObject();
+          return map;
+        }
+
+        @Override
+        public void toJson(com.squareup.moshi.JsonWriter writer, StringDoubleMap value) throws IOException {
+          writer.beginObject();
+          for (int i = 0; i < value.size(); i++) {
+            writer.name(value.keyAt(i)).value(value.valueAt(i));
+          }
+          writer.endObject();
+        }
+      }.nullSafe());
+
+  @Override
+  public JsonAdapter<?> create(Type type, Set<? extends Annotation> annotations, Moshi moshi) {
+    return annotations.isEmpty() ? MOSHI_ADAPTERS.get(Types.getRawType(type)) : null;
+  }
+
+  private static IntList readInts(com.squareup.moshi.JsonReader reader) throws IOException {
+    IntList list = new IntList();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      list.addInt(reader.nextInt());
+    }
+    reader.endArray();
+    return list;
+  }
+
+  private static LongList readLongs(com.squareup.moshi.JsonReader reader) throws IOException {
+    LongList list = new LongList();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      list.addLong(reader.nextLong());
+    }
+    reader.endArray();
+    return list;
+  }
+
+  private static DoubleList readDoubles(com.squareup.moshi.JsonReader reader) throws IOException {
+    DoubleList list = new DoubleList();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      list.addDouble(reader.nextDouble());
+    }
+    reader.endArray();
+    return list;
+  }
+
+  // Gson
+
+  private static final Map<Class<?>, TypeAdapter<?>> GSON_ADAPTERS = Map.of(
+      int[].class, new TypeAdapter<int[]>() {
+        @Override
+        public void write(JsonWriter out, int[] value) throws IOException {
+          out.beginArray();
+          for (int element : value) {
+            out.value(element);
+          }
+          out.endArray();
+        }
+
+        @Override
+        public int[] read(JsonReader in) throws IOException {
+          return readInts(in).toIntArray();
+        }
+      }.nullSafe(),
+      long[].class, new TypeAdapter<long[]>() {
+        @Override
+        public void write(JsonWriter out, long[] value) throws IOException {
+          out.beginArray();
+          for (long element : value) {
+            out.value(element);
+          }
+          out.endArray();
+        }
+
+        @Override
+        public long[] read(JsonReader in) throws IOException {
+          return readLongs(in).toLongArray();
+        }
+      }.nullSafe(),
+      double[].class, new TypeAdapter<double[]>() {
+        @Override
+        public void write(JsonWriter out, double[] value) throws IOException {
+          out.beginArray();
+          for (double element : value) {
+            out.value(element);
+          }
+          out.endArray();
+        }
+
+        @Override
+        public double[] read(JsonReader in) throws IOException {
+          return readDoubles(in).toDoubleArray();
+        }
+      }.nullSafe(),
+      IntList.class, new TypeAdapter<IntList>() {
+        @Override
+        public void write(JsonWriter out, IntList value) throws IOException {
+          out.beginArray();
+          for (int i = 0; i < value.size(); i++) {
+            out.value(value.getInt(i));
+          }
+          out.endArray();
+        }
+
+        @Override
+        public IntList read(JsonReader in) throws IOException {
+          return readInts(in);
+        }
+      }.nullSafe(),
+      LongList.class, new TypeAdapter<LongList>() {
+        @Override
+        public void write(JsonWriter out, LongList value) throws IOException {
+          out.beginArray();
+          for (int i = 0; i < value.size(); i++) {
+            out.value(value.getLong(i));
+          }
+          out.endArray();
+        }
+
+        @Override
+        public LongList read(JsonReader in) throws IOException {
+          return readLongs(in);
+        }
+      }.nullSafe(),
+      DoubleList.class, new TypeAdapter<DoubleList>() {
+        @Override
+        public void write(JsonWriter out, DoubleList value) throws IOException {
+          out.beginArray();
+          for (int i = 0; i < value.size(); i++) {
+            out.value(value.getDouble(i));
+          }
+          out.endArray();
+        }
+
+        @Override
+        public DoubleList read(JsonReader in) throws IOException {
+          return readDoubles(in);
+        }
+      }.nullSafe(),
+      StringIntMap.class, new TypeAdapter<StringIntMap>() {
+        @Override
+        public void write(JsonWriter out, StringIntMap value) throws IOException {
+          out.beginObject();
+          for (int i = 0; i < value.size(); i++) {
+            out.name(value.keyAt(i)).value(value.valueAt(i));
+          }
+          out.endObject();
+        }
+
+        @Override
+        public StringIntMap read(JsonReader in) throws IOException {
+          StringIntMap map = new StringIntMap();
+          in.beginObject();
+          while (in.hasNext()) {
+            map.put(in.nextName(), in.nextInt());
+          }
+          in.endObject();
+          return map;
+        }
+      }.nullSafe(),
+      StringLongMap.class, new TypeAdapter<StringLongMap>() {
+        @Override
+        public void write(JsonWriter out, StringLongMap value) throws IOException {
+          out.beginObject();
+          for (int i = 0; i < value.size(); i++) {
+            out.name(value.keyAt(i)).value(value.valueAt(i));
+          }
+          out.endObject();
+        }
+
+        @Override
+        public StringLongMap read(JsonReader in) throws IOException {
+          StringLongMap map = new StringLongMap();
+          in.beginObject();
+          while (in.hasNext()) {
+            map.put(in.nextName(), in.nextLong());
+          }
+          in.endObject();
+          return map;
+        }
+      }.nullSafe(),
+      StringDoubleMap.class, new TypeAdapter<StringDoubleMap>() {
+        @Override
+        public void write(JsonWriter out, StringDoubleMap value) throws IOException {
+          out.beginObject();
+          for (int i = 0; i < value.size(); i++) {
+            out.name(value.keyAt(i)).value(value.valueAt(i));
+          }
+          out.endObject();
+        }
+
+        @Override
+        public StringDoubleMap read(JsonReader in) throws IOException {
+          StringDoubleMap map = new StringDoubleMap();
+          in.beginObject();
+          while (in.hasNext()) {
+            map.put(in.nextName(), in.nextDouble());
+          }
+          in.endObject();
+          return map;
+        }
+      }.nullSafe());
+
+  @Override
+  @SuppressWarnings("unchecked") // the adapters are keyed by the exact class they handle
+  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+    return (TypeAdapter<T>) GSON_ADAPTERS.get(type.getRawType());
+  }
+
+  private static IntList readInts(JsonReader in) throws IOException {
+    IntList list = new IntList();
+    in.beginArray();
+    while (in.hasNext()) {
+      list.addInt(in.nextInt());
+    }
+    in.endArray();
+    return list;
+  }
+
+  private static LongList readLongs(JsonReader in) throws IOException {
+    LongList list = new LongList();
+    in.beginArray();
+    while (in.hasNext()) {
+      list.addLong(in.nextLong());
+    }
+    in.endArray();
+    return list;
+  }
+
+  private static DoubleList readDoubles(JsonReader in) throws IOException {
+    DoubleList list = new DoubleList();
+    in.beginArray();
+    while (in.hasNext()) {
+      list.addDouble(in.nextDouble());
+    }
+    in.endArray();
+    return list;
+  }
+
+  // Jackson
+
+  public Module jacksonModule() {
+    SimpleModule module = new SimpleModule(PrimitiveAdapterFactory.class.getSimpleName());
+    module.addSerializer(IntList.class, new StdSerializer<>(IntList.class) {
+      @Override
+      public void serialize(IntList value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray(value, value.size());
+        for (int i = 0; i < value.size(); i++) {
+          gen.writeNumber(value.getInt(i));
+        }
+        gen.writeEndArray();
+      }
+    });
+    module.addDeserializer(IntList.class, new StdDeserializer<>(IntList.class) {
+      @Override
+      public IntList deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.isExpectedStartArrayToken()) {
+          return (IntList) ctxt.handleUnexpectedToken(IntList.class, p);
+        }
+        IntList list = new IntList();
+        while (p.nextToken() != com.fasterxml.jackson.core.JsonToken.END_ARRAY) {
+          list.addInt(p.getIntValue());
+        }
+        return list;
+      }
+    });
+    module.addSerializer(LongList.class, new StdSerializer<>(LongList.class) {
+      @Override
+      public void serialize(LongList value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray(value, value.size());
+        for (int i = 0; i < value.size(); i++) {
+          gen.writeNumber(value.getLong(i));
+        }
+        gen.writeEndArray();
+      }
+    });
+    module.addDeserializer(LongList.class, new StdDeserializer<>(LongList.class) {
+      @Override
+      public LongList deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.isExpectedStartArrayToken()) {
+          return (LongList) ctxt.handleUnexpectedToken(LongList.class, p);
+        }
+        LongList list = new LongList();
+        while (p.nextToken() != com.fasterxml.jackson.core.JsonToken.END_ARRAY) {
+          list.addLong(p.getLongValue());
+        }
+        return list;
+      }
+    });
+    module.addSerializer(DoubleList.class, new StdSerializer<>(DoubleList.class) {
+      @Override
+      public void serialize(DoubleList value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray(value, value.size());
+        for (int i = 0; i < value.size(); i++) {
+          gen.writeNumber(value.getDouble(i));
+        }
+        gen.writeEndArray();
+      }
+    });
+    module.addDeserializer(DoubleList.class, new StdDeserializer<>(DoubleList.class) {
+      @Override
+      public DoubleList deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.isExpectedStartArrayToken()) {
+          return (DoubleList) ctxt.handleUnexpectedToken(DoubleList.class, p);
+        }
+        DoubleList list = new DoubleList();
+        while (p.nextToken() != com.fasterxml.jackson.core.JsonToken.END_ARRAY) {
+          list.addDouble(p.getDoubleValue());
+        }
+        return list;
+      }
+    });
+    module.addSerializer(StringIntMap.class, new StdSerializer<>(StringIntMap.class) {
+      @Override
+      public void serialize(StringIntMap value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+        for (int i = 0; i < value.size(); i++) {
+          gen.writeNumberField(value.keyAt(i), value.valueAt(i));
+        }
+        gen.writeEndObject();
+      }
+    });
+    module.addDeserializer(StringIntMap.class, new StdDeserializer<>(StringIntMap.class) {
+      @Override
+      public StringIntMap deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        StringIntMap map = new StringIntMap();
+        for (String name = firstFieldName(p, ctxt, StringIntMap.class); name != null; name = p.nextFieldName()) {
+          p.nextToken();
+          map.put(name, p.getIntValue());
+        }
+        return map;
+      }
+    });
+    module.addSerializer(StringLongMap.class, new StdSerializer<>(StringLongMap.class) {
+      @Override
+      public void serialize(StringLongMap value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+        for (int i = 0; i < value.size(); i++) {
+          gen.writeNumberField(value.keyAt(i), value.valueAt(i));
+        }
+        gen.writeEndObject();
+      }
+    });
+    module.addDeserializer(StringLongMap.class, new StdDeserializer<>(StringLongMap.class) {
+      @Override
+      public StringLongMap deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        StringLongMap map = new StringLongMap();
+        for (String name = firstFieldName(p, ctxt, StringLongMap.class); name != null; name = p.nextFieldName()) {
+          p.nextToken();
+          map.put(name, p.getLongValue());
+        }
+        return map;
+      }
+    });
+    module.addSerializer(StringDoubleMap.class, new StdSerializer<>(StringDoubleMap.class) {
+      @Override
+      public void serialize(StringDoubleMap value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+        for (int i = 0; i < value.size(); i++) {
+          gen.writeNumberField(value.keyAt(i), value.valueAt(i));
+        }
+        gen.writeEndObject();
+      }
+    });
+    module.addDeserializer(StringDoubleMap.class, new StdDeserializer<>(StringDoubleMap.class) {
+      @Override
+      public StringDoubleMap deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        StringDoubleMap map = new StringDoubleMap();
+        for (String name = firstFieldName(p, ctxt, StringDoubleMap.class); name != null; name = p.nextFieldName()) {
+          p.nextToken();
+          map.put(name, p.getDoubleValue());
+        }
+        return map;
+      }
+    });
+    return module;
+  }
+
+  // Positions the parser on the first property of an object, which Jackson may already have consumed the start of
+  private static String firstFieldName(JsonParser p, DeserializationContext ctxt, Class<?> type) throws IOException {
+    switch (p.currentTokenId()) {
+      case JsonTokenId.ID_START_OBJECT:
+        return p.nextFieldName();
+      case JsonTokenId.ID_FIELD_NAME:
+        return p.currentName();
+      case JsonTokenId.ID_END_OBJECT:
+        return null;
+      default:
+        ctxt.handleUnexpectedToken(type, p);
+        return null;
+    }
+  }
+
+}
@@ -1,30 +1,48 @@
 package com.aaronjyoder.util.json.adapters;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.NopAnnotationIntrospector;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.StdTypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
 import com.google.common.collect.ImmutableSet;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
 import com.google.gson.TypeAdapter;
 import com.google.gson.TypeAdapterFactory;
 import com.google.gson.internal.Streams;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.Moshi;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
 
 public class RuntimeTypeAdapterFactory<T> implements TypeAdapterFactory, JsonAdapter.Factory {
@@ -105,35 +123,56 @@ public class RuntimeTypeAdapterFactory<T> implements TypeAdapterFactory, JsonAda
         = new LinkedHashMap<>();
     final Map<Class<?>, TypeAdapter<?>> subtypeToDelegate
         = new LinkedHashMap<Class<?>, TypeAdapter<?>>();
+    final Set<String> streamableLabels = new HashSet<>();
     for (Map.Entry<String, Class<?>> entry : classNameToClass.entrySet()) {
       TypeAdapter<?> delegate = gson.getDelegateAdapter(this, TypeToken.get(entry.getValue()));
       labelToDelegate.put(entry.getKey(), delegate);
       subtypeToDelegate.put(entry.getValue(), delegate);
+      if (isStreamable(com.google.common.reflect.TypeToken.of(entry.getValue()), new HashSet<>())) {
+        streamableLabels.add(entry.getKey());
+      }
     }
 
     return new TypeAdapter<R>() {
       @Override
       public R read(JsonReader in) throws IOException {
-        JsonElement jsonElement = Streams.parse(in);
+        in.beginObject();
+        if (!in.hasNext()) {
+          in.endObject();
+          throw new JsonParseException("cannot deserialize " + baseClass
+              + " because it does not define a field named " + classNameProperty);
+        }
+        String firstName = in.nextName();
+        JsonObject jsonObject = new JsonObject();
+        if (firstName.equals(classNameProperty) && in.peek() == JsonToken.STRING) {
+          String label = in.nextString();
+          if (streamableLabels.contains(label)) {
+            // Streaming: the label comes first, so the delegate can read straight from the stream
+            return delegateFor(label).read(new ResumedJsonReader(in, maintainType ? classNameProperty : null, label));
+          }
+          jsonObject.addProperty(firstName, label);
+        } else {
+          jsonObject.add(firstName, Streams.parse(in));
+        }
+
+        // Buffered fallback for documents whose type field is not the first property, and for subtypes that cannot be streamed
+        while (in.hasNext()) {
+          jsonObject.add(in.nextName(), Streams.parse(in));
+        }
+        in.endObject();
+
         JsonElement labelJsonElement;
         if (maintainType) {
-          labelJsonElement = jsonElement.getAsJsonObject().get(classNameProperty);
+          labelJsonElement = jsonObject.get(classNameProperty);
         } else {
-          labelJsonElement = jsonElement.getAsJsonObject().remove(classNameProperty);
+          labelJsonElement = jsonObject.remove(classNameProperty);
         }
 
         if (labelJsonElement == null) {
           throw new JsonParseException("cannot deserialize " + baseClass
               + " because it does not define a field named " + classNameProperty);
         }
-        String label = labelJsonElement.getAsString();
-        @SuppressWarnings("unchecked") // registration requires that subtype extends T
-        TypeAdapter<R> delegate = (TypeAdapter<R>) labelToDelegate.get(label);
-        if (delegate == null) {
-          throw new JsonParseException("cannot deserialize " + baseClass + " subtype named "
-              + label + "; did you forget to register a subtype?");
-        }
-        return delegate.fromJsonTree(jsonElement);
+        return delegateFor(labelJsonElement.getAsString()).fromJsonTree(jsonObject);
       }
 
       @Override
@@ -146,27 +185,408 @@ public class RuntimeTypeAdapterFactory<T> implements TypeAdapterFactory, JsonAda
           throw new JsonParseException("cannot serialize " + srcType.getName()
               + "; did you forget to register a subtype?");
         }
-        JsonObject jsonObject = delegate.toJsonTree(value).getAsJsonObject();
 
         if (maintainType) {
-          Streams.write(jsonObject, out);
+          delegate.write(out, value);
           return;
         }
 
-        JsonObject clone = new JsonObject();
+        out.beginObject();
+        out.name(classNameProperty).value(label);
+        delegate.write(new FlatteningJsonWriter(out, classNameProperty, srcType), value);
+        out.endObject();
+      }
 
-        if (jsonObject.has(classNameProperty)) {
-          throw new JsonParseException("cannot serialize " + srcType.getName()
-              + " because it already defines a field named " + classNameProperty);
+      private TypeAdapter<R> delegateFor(String label) {
+        @SuppressWarnings("unchecked") // registration requires that subtype extends T
+        TypeAdapter<R> delegate = (TypeAdapter<R>) labelToDelegate.get(label);
+        if (delegate == null) {
+          throw new JsonParseException("cannot deserialize " + baseClass + " subtype named "
+              + label + "; did you forget to register a subtype?");
         }
-        clone.add(classNameProperty, new JsonPrimitive(label));
+        return delegate;
+      }
+    }.nullSafe();
+  }
 
-        for (Map.Entry<String, JsonElement> e : jsonObject.entrySet()) {
-          clone.add(e.getKey(), e.getValue());
+  // Whether Gson can read values of type through a ResumedJsonReader. Gson's map adapters promote every key to a value through a hook that only works on its
+  // own readers, so types that may hold a map, or whose contents cannot be resolved, are read through the buffered path instead.
+  private static boolean isStreamable(com.google.common.reflect.TypeToken<?> type, Set<Type> visited) {
+    Type t = type.getType();
+    if (t instanceof TypeVariable<?>) {
+      return false;
+    }
+    if (t instanceof WildcardType) {
+      return isStreamable(com.google.common.reflect.TypeToken.of(((WildcardType) t).getUpperBounds()[0]), visited);
+    }
+    if (type.isArray()) {
+      return isStreamable(type.getComponentType(), visited);
+    }
+    Class<?> raw = type.getRawType();
+    if (raw.isPrimitive() || raw.isEnum() || raw == String.class || raw == Object.class || JsonElement.class.isAssignableFrom(raw)) {
+      return true;
+    }
+    if (Map.class.isAssignableFrom(raw)) {
+      return false;
+    }
+    if (Collection.class.isAssignableFrom(raw)) {
+      return isStreamable(type.resolveType(Collection.class.getTypeParameters()[0]), visited);
+    }
+    if (raw.isInterface() || Modifier.isAbstract(raw.getModifiers()) || raw.isAnnotationPresent(com.google.gson.annotations.JsonAdapter.class)) {
+      return false;
+    }
+    if (!visited.add(t)) {
+      // Already being checked further up
+      return true;
+    }
+    for (Class<?> c = raw; c != null && c != Object.class; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+          continue;
+        }
+        if (field.isAnnotationPresent(com.google.gson.annotations.JsonAdapter.class) || !isStreamable(type.resolveType(field.getGenericType()), visited)) {
+          return false;
         }
-        Streams.write(clone, out);
       }
-    }.nullSafe();
+    }
+    return true;
+  }
+
+  /**
+   * Presents a {@link JsonReader} whose opening brace (and type field) have already been consumed as if they had not been, so a subtype adapter can read the
+   * rest of the object straight from the stream. When {@code replayName} is set, the type field is replayed as the first property.
+   * <p>
+   * Gson's map adapters cannot read through it, since they promote names to values through Gson internals; see {@link #isStreamable}.
+   */
+  private static final class ResumedJsonReader extends JsonReader {
+
+    private static final Reader UNREADABLE_READER = new Reader() {
+      @Override
+      public int read(char[] buffer, int offset, int count) throws IOException {
+        // Only Gson's internal name promotion reads a JsonReader's own buffer, and isStreamable() keeps map adapters off this reader
+        throw new IOException("Cannot promote a name to a value while streaming a polymorphic subtype");
+      }
+
+      @Override
+      public void close() {
+        throw new AssertionError();
+      }
+    };
+
+    private static final int BEFORE_OBJECT = 0;
+    private static final int BEFORE_NAME = 1;
+    private static final int BEFORE_VALUE = 2;
+    private static final int STREAMING = 3;
+
+    private final JsonReader in;
+    private final String replayName;
+    private final String replayValue;
+    private int state = BEFORE_OBJECT;
+
+    ResumedJsonReader(JsonReader in, @Nullable String replayName, String replayValue) {
+      super(UNREADABLE_READER);
+      this.in = in;
+      this.replayName = replayName;
+      this.replayValue = replayValue;
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+      if (state == BEFORE_OBJECT) {
+        state = replayName != null ? BEFORE_NAME : STREAMING;
+        return;
+      }
+      checkStreaming(JsonToken.BEGIN_OBJECT);
+      in.beginObject();
+    }
+
+    @Override
+    public void endObject() throws IOException {
+      checkStreaming(JsonToken.END_OBJECT);
+      in.endObject();
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+      checkStreaming(JsonToken.BEGIN_ARRAY);
+      in.beginArray();
+    }
+
+    @Override
+    public void endArray() throws IOException {
+      checkStreaming(JsonToken.END_ARRAY);
+      in.endArray();
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+      return state != STREAMING || in.hasNext();
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+      switch (state) {
+        case BEFORE_OBJECT:
+          return JsonToken.BEGIN_OBJECT;
+        case BEFORE_NAME:
+          return JsonToken.NAME;
+        case BEFORE_VALUE:
+          return JsonToken.STRING;
+        default:
+          return in.peek();
+      }
+    }
+
+    @Override
+    public String nextName() throws IOException {
+      if (state == BEFORE_NAME) {
+        state = BEFORE_VALUE;
+        return replayName;
+      }
+      checkStreaming(JsonToken.NAME);
+      return in.nextName();
+    }
+
+    @Override
+    public String nextString() throws IOException {
+      if (state == BEFORE_VALUE) {
+        state = STREAMING;
+        return replayValue;
+      }
+      checkStreaming(JsonToken.STRING);
+      return in.nextString();
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+      checkStreaming(JsonToken.BOOLEAN);
+      return in.nextBoolean();
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+      checkStreaming(JsonToken.NULL);
+      in.nextNull();
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+      checkStreaming(JsonToken.NUMBER);
+      return in.nextDouble();
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+      checkStreaming(JsonToken.NUMBER);
+      return in.nextLong();
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+      checkStreaming(JsonToken.NUMBER);
+      return in.nextInt();
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+      switch (state) {
+        case BEFORE_OBJECT:
+          state = STREAMING;
+          while (in.hasNext()) {
+            in.nextName();
+            in.skipValue();
+          }
+          in.endObject();
+          break;
+        case BEFORE_NAME:
+          state = BEFORE_VALUE;
+          break;
+        case BEFORE_VALUE:
+          state = STREAMING;
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+
+    @Override
+    public String getPath() {
+      return in.getPath();
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+
+    @Override
+    public String toString() {
+      return getClass().getSimpleName() + " over " + in;
+    }
+
+    private void checkStreaming(JsonToken expected) throws IOException {
+      if (state != STREAMING) {
+        throw new IllegalStateException("Expected " + expected + " but was " + peek() + " " + in.getPath());
+      }
+    }
+
+  }
+
+  /**
+   * Forwards a subtype adapter's output into an object that has already been opened (and given its type field), dropping the subtype's own braces.
+   */
+  private static final class FlatteningJsonWriter extends JsonWriter {
+
+    private static final Writer UNWRITABLE_WRITER = new Writer() {
+      @Override
+      public void write(char[] buffer, int offset, int counter) {
+        throw new AssertionError();
+      }
+
+      @Override
+      public void flush() {
+        throw new AssertionError();
+      }
+
+      @Override
+      public void close() {
+        throw new AssertionError();
+      }
+    };
+
+    private final JsonWriter out;
+    private final String classNameProperty;
+    private final Class<?> srcType;
+    private int depth;
+
+    FlatteningJsonWriter(JsonWriter out, String classNameProperty, Class<?> srcType) {
+      super(UNWRITABLE_WRITER);
+      this.out = out;
+      this.classNameProperty = classNameProperty;
+      this.srcType = srcType;
+      setLenient(out.isLenient());
+      setHtmlSafe(out.isHtmlSafe());
+      setSerializeNulls(out.getSerializeNulls());
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+      if (depth++ > 0) {
+        out.beginObject();
+      }
+      return this;
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+      if (--depth > 0) {
+        out.endObject();
+      }
+      return this;
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+      checkInObject();
+      depth++;
+      out.beginArray();
+      return this;
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+      depth--;
+      out.endArray();
+      return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+      if (depth == 1 && name.equals(classNameProperty)) {
+        throw new JsonParseException("cannot serialize " + srcType.getName()
+            + " because it already defines a field named " + classNameProperty);
+      }
+      out.name(name);
+      return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+      checkInObject();
+      out.value(value);
+      return this;
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) throws IOException {
+      checkInObject();
+      out.jsonValue(value);
+      return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+      checkInObject();
+      out.nullValue();
+      return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+      checkInObject();
+      out.value(value);
+      return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+      checkInObject();
+      out.value(value);
+      return this;
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+      checkInObject();
+      out.value(value);
+      return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+      checkInObject();
+      out.value(value);
+      return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+      checkInObject();
+      out.value(value);
+      return this;
+    }
+
+    @Override
+    public boolean isLenient() {
+      return out.isLenient();
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.close();
+    }
+
+    private void checkInObject() {
+      if (depth == 0) {
+        throw new JsonParseException("cannot serialize " + srcType.getName() + " because it is not written as a JSON object");
+      }
+    }
+
   }
 
   // Moshi
@@ -180,58 +600,177 @@ public class RuntimeTypeAdapterFactory<T> implements TypeAdapterFactory, JsonAda
     if (!baseClass.isAssignableFrom(typeAsClass)) {
       return null;
     }
-    final JsonAdapter<Object> jsonObjectJsonAdapter = moshi.nextAdapter(this, Map.class, ImmutableSet.of());
-    final LoadingCache<Class<?>, JsonAdapter<Object>> jsonAdaptersCache = CacheBuilder.newBuilder()
-        .build(new CacheLoader<>() {
-          @Override
-          public JsonAdapter<Object> load(final Class<?> clazz) {
-            return moshi.nextAdapter(RuntimeTypeAdapterFactory.this, clazz, ImmutableSet.copyOf(clazz.getAnnotations()));
-          }
-        });
+
+    // Resolved once per Moshi instance; labelAdapters.get(i) belongs to labelOptions.strings().get(i)
+    final List<String> labels = new ArrayList<>(classNameToClass.keySet());
+    final List<JsonAdapter<Object>> labelAdapters = new ArrayList<>(labels.size());
+    final Map<Class<?>, JsonAdapter<Object>> subtypeAdapters = new HashMap<>();
+    for (String label : labels) {
+      Class<?> concreteClass = classNameToClass.get(label);
+      JsonAdapter<Object> jsonAdapter = moshi.nextAdapter(this, concreteClass, ImmutableSet.copyOf(concreteClass.getAnnotations()));
+      labelAdapters.add(jsonAdapter);
+      subtypeAdapters.put(concreteClass, jsonAdapter);
+    }
+    final com.squareup.moshi.JsonReader.Options nameOptions = com.squareup.moshi.JsonReader.Options.of(classNameProperty);
+    final com.squareup.moshi.JsonReader.Options labelOptions = com.squareup.moshi.JsonReader.Options.of(labels.toArray(new String[0]));
+
     return new JsonAdapter<>() {
       @Nullable
       @Override
-      public Object fromJson(final com.squareup.moshi.JsonReader jsonReader)
-          throws IOException {
-        try {
-          @SuppressWarnings("unchecked") final Map<String, Object> jsonObject = (Map<String, Object>) jsonReader.readJsonValue();
-          assert jsonObject != null;
-          final Object rawClassName = jsonObject.get(classNameProperty);
-          if (!(rawClassName instanceof String)) {
-            throw new IOException("Type name: expected a string in " + classNameProperty + ", but got " + rawClassName);
+      public Object fromJson(final com.squareup.moshi.JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == com.squareup.moshi.JsonReader.Token.NULL) {
+          return jsonReader.nextNull();
+        }
+        final int labelIndex;
+        try (com.squareup.moshi.JsonReader peeked = jsonReader.peekJson()) {
+          labelIndex = labelIndex(peeked);
+        }
+        return labelAdapters.get(labelIndex).fromJson(jsonReader);
+      }
+
+      // Scans ahead on a peeked reader, so the original reader is still positioned at the start of the object
+      private int labelIndex(final com.squareup.moshi.JsonReader peeked) throws IOException {
+        peeked.setFailOnUnknown(false);
+        peeked.beginObject();
+        while (peeked.hasNext()) {
+          if (peeked.selectName(nameOptions) == -1) {
+            peeked.skipName();
+            peeked.skipValue();
+            continue;
+          }
+          final int labelIndex = peeked.selectString(labelOptions);
+          if (labelIndex != -1) {
+            return labelIndex;
           }
-          final String className = (String) rawClassName;
-          final Class<?> concreteClass = classNameToClass.get(className);
-          if (concreteClass == null) {
-            throw new IOException("No mapping registered for " + className);
+          if (peeked.peek() == com.squareup.moshi.JsonReader.Token.STRING) {
+            throw new IOException("No mapping registered for " + peeked.nextString());
           }
-          final JsonAdapter<Object> jsonAdapter = jsonAdaptersCache.get(concreteClass);
-          return jsonAdapter.fromJsonValue(jsonObject);
-        } catch (final ExecutionException ex) {
-          throw new RuntimeException(ex);
+          throw new IOException("Type name: expected a string in " + classNameProperty + ", but got " + peeked.readJsonValue());
         }
+        throw new IOException("Type name: expected a string in " + classNameProperty + ", but got null");
       }
 
       @Override
-      public void toJson(final com.squareup.moshi.JsonWriter jsonWriter, @Nullable final Object value)
-          throws IOException {
-        try {
-          assert value != null;
-          final Class<?> concreteClass = value.getClass();
-          final String className = classToClassName.get(concreteClass);
-          if (className == null) {
-            throw new IOException("No mapping registered for " + concreteClass);
-          }
-          final JsonAdapter<Object> valueJsonAdapter = jsonAdaptersCache.get(concreteClass);
-          @SuppressWarnings("unchecked") final Map<String, Object> jsonObject = (Map<String, Object>) valueJsonAdapter.toJsonValue(value);
-          assert jsonObject != null;
-          jsonObject.put(classNameProperty, className);
-          jsonObjectJsonAdapter.toJson(jsonWriter, jsonObject);
-        } catch (final ExecutionException ex) {
-          throw new RuntimeException(ex);
+      public void toJson(final com.squareup.moshi.JsonWriter jsonWriter, @Nullable final Object value) throws IOException {
+        if (value == null) {
+          jsonWriter.nullValue();
+          return;
+        }
+        final Class<?> concreteClass = value.getClass();
+        final String className = classToClassName.get(concreteClass);
+        final JsonAdapter<Object> valueJsonAdapter = subtypeAdapters.get(concreteClass);
+        if (className == null || valueJsonAdapter == null) {
+          throw new IOException("No mapping registered for " + concreteClass);
+        }
+        if (maintainType) {
+          valueJsonAdapter.toJson(jsonWriter, value);
+          return;
         }
+        jsonWriter.beginObject();
+        jsonWriter.name(classNameProperty).value(className);
+        final int flattenToken = jsonWriter.beginFlatten();
+        valueJsonAdapter.toJson(jsonWriter, value);
+        jsonWriter.endFlatten(flattenToken);
+        jsonWriter.endObject();
+      }
+    };
+  }
+
+  // Jackson
+
+  /**
+   * Creates a Jackson module that gives {@code baseClass} and its registered subtypes the same type field and labels as the Gson and Moshi adapters. Only this
+   * hierarchy carries type information, unlike Jackson's default typing. Labels registered after this call are not seen by the module.
+   */
+  public Module jacksonModule() {
+    final Map<String, Class<?>> labelToSubtype = Map.copyOf(classNameToClass);
+    final Map<Class<?>, String> subtypeToLabel = Map.copyOf(classToClassName);
+    return new Module() {
+      @Override
+      public String getModuleName() {
+        return RuntimeTypeAdapterFactory.class.getSimpleName() + "(" + baseClass.getName() + ")";
+      }
+
+      @Override
+      public Version version() {
+        return Version.unknownVersion();
+      }
+
+      // Every factory contributes its own module, so registrations must not be deduplicated by class
+      @Override
+      public Object getTypeId() {
+        return RuntimeTypeAdapterFactory.this;
+      }
+
+      @Override
+      public void setupModule(SetupContext context) {
+        context.insertAnnotationIntrospector(new NopAnnotationIntrospector() {
+          @Override
+          public TypeResolverBuilder<?> findTypeResolver(MapperConfig<?> config, AnnotatedClass ac, JavaType baseType) {
+            if (!baseClass.isAssignableFrom(ac.getRawType())) {
+              return null;
+            }
+            return new StdTypeResolverBuilder()
+                .init(JsonTypeInfo.Id.NAME, new JacksonTypeIdResolver(baseType, labelToSubtype, subtypeToLabel))
+                .inclusion(maintainType ? JsonTypeInfo.As.EXISTING_PROPERTY : JsonTypeInfo.As.PROPERTY)
+                .typeProperty(classNameProperty)
+                .typeIdVisibility(maintainType);
+          }
+        });
       }
     };
   }
 
+  private final class JacksonTypeIdResolver extends TypeIdResolverBase {
+
+    private final JavaType baseType;
+    private final Map<String, Class<?>> labelToSubtype;
+    private final Map<Class<?>, String> subtypeToLabel;
+
+    private JacksonTypeIdResolver(JavaType baseType, Map<String, Class<?>> labelToSubtype, Map<Class<?>, String> subtypeToLabel) {
+      this.baseType = baseType;
+      this.labelToSubtype = labelToSubtype;
+      this.subtypeToLabel = subtypeToLabel;
+    }
+
+    @Override
+    public String idFromValue(Object value) {
+      return idFromValueAndType(value, value.getClass());
+    }
+
+    @Override
+    public String idFromValueAndType(Object value, Class<?> suggestedType) {
+      String label = subtypeToLabel.get(suggestedType);
+      if (label == null) {
+        throw new IllegalArgumentException("cannot serialize " + suggestedType.getName()
+            + "; did you forget to register a subtype?");
+      }
+      return label;
+    }
+
+    @Override
+    public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+      Class<?> subtype = labelToSubtype.get(id);
+      if (subtype == null) {
+        if (context instanceof DeserializationContext) {
+          return ((DeserializationContext) context).handleUnknownTypeId(baseType, id, this, "did you forget to register a subtype?");
+        }
+        throw new IllegalArgumentException("cannot deserialize " + baseClass + " subtype named " + id
+            + "; did you forget to register a subtype?");
+      }
+      return context.constructSpecializedType(baseType, subtype);
+    }
+
+    @Override
+    public JsonTypeInfo.Id getMechanism() {
+      return JsonTypeInfo.Id.NAME;
+    }
+
+    @Override
+    public String getDescForKnownTypeIds() {
+      return String.join(", ", labelToSubtype.keySet());
+    }
+
+  }
+
 }
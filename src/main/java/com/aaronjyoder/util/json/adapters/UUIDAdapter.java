@@ -1,41 +1,113 @@
 package com.aaronjyoder.util.json.adapters;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
-import com.squareup.moshi.FromJson;
-import com.squareup.moshi.ToJson;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonTokenId;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.util.Set;
 import java.util.UUID;
 
-public final class UUIDAdapter implements JsonSerializer<UUID>, JsonDeserializer<UUID> {
+public final class UUIDAdapter extends TypeAdapter<UUID> implements JsonAdapter.Factory {
 
   // Moshi
 
-  @ToJson
-  String toJson(UUID uuid) {
-    return uuid.toString();
-  }
+  private static final JsonAdapter<UUID> MOSHI_ADAPTER = new JsonAdapter<UUID>() {
+    @Override
+    public UUID fromJson(com.squareup.moshi.JsonReader reader) throws IOException {
+      return UUID.fromString(reader.nextString());
+    }
+
+    @Override
+    public void toJson(com.squareup.moshi.JsonWriter writer, UUID value) throws IOException {
+      writer.value(value.toString());
+    }
+
+    @Override
+    public String toString() {
+      return "JsonAdapter(UUID)";
+    }
+  }.nullSafe();
 
-  @FromJson
-  UUID fromJson(String uuid) {
-    return UUID.fromString(uuid);
+  @Override
+  public JsonAdapter<?> create(Type type, Set<? extends Annotation> annotations, Moshi moshi) {
+    return type == UUID.class && annotations.isEmpty() ? MOSHI_ADAPTER : null;
   }
 
   // Gson
 
   @Override
-  public JsonElement serialize(UUID src, Type srcType, JsonSerializationContext context) {
-    return new JsonPrimitive(src.toString());
+  public void write(JsonWriter out, UUID value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.value(value.toString());
   }
 
   @Override
-  public UUID deserialize(JsonElement json, Type type, JsonDeserializationContext context) throws JsonParseException {
-    return UUID.fromString(json.getAsString());
+  public UUID read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return UUID.fromString(in.nextString());
+  }
+
+  // Jackson
+
+  // Written as a string even where the format could hold 16 raw bytes, so that every backend and format agrees
+  static final class JacksonSerializer extends StdSerializer<UUID> {
+
+    private static final long serialVersionUID = 1L;
+
+    JacksonSerializer() {
+      super(UUID.class);
+    }
+
+    @Override
+    public void serialize(UUID value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      gen.writeString(value.toString());
+    }
+
+    @Override
+    public void serializeWithType(UUID value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+      WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(value, com.fasterxml.jackson.core.JsonToken.VALUE_STRING));
+      serialize(value, gen, provider);
+      typeSer.writeTypeSuffix(gen, typeId);
+    }
+
+  }
+
+  static final class JacksonDeserializer extends StdDeserializer<UUID> {
+
+    private static final long serialVersionUID = 1L;
+
+    JacksonDeserializer() {
+      super(UUID.class);
+    }
+
+    @Override
+    public UUID deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      if (p.currentTokenId() != JsonTokenId.ID_STRING) {
+        return (UUID) ctxt.handleUnexpectedToken(UUID.class, p);
+      }
+      return UUID.fromString(p.getText());
+    }
+
   }
 
 }
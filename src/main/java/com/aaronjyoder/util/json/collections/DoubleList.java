@@ -0,0 +1,132 @@
+package com.aaronjyoder.util.json.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import javax.annotation.Nonnull;
+
+/**
+ * A growable list of {@code double} values stored in a primitive array. The {@link java.util.List} methods box on access; use the {@code Double}
+ * variants to avoid that. Null elements are not permitted.
+ */
+public final class DoubleList extends AbstractList<Double> implements RandomAccess {
+
+  private static final double[] EMPTY = {};
+
+  private double[] values;
+  private int size;
+
+  public DoubleList() {
+    this.values = EMPTY;
+  }
+
+  public DoubleList(int initialCapacity) {
+    if (initialCapacity < 0) {
+      throw new IllegalArgumentException("initialCapacity must not be negative");
+    }
+    this.values = initialCapacity == 0 ? EMPTY : new double[initialCapacity];
+  }
+
+  @Nonnull
+  public static DoubleList of(@Nonnull double... values) {
+    DoubleList list = new DoubleList(values.length);
+    System.arraycopy(values, 0, list.values, 0, values.length);
+    list.size = values.length;
+    return list;
+  }
+
+  public double getDouble(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  public double setDouble(int index, double value) {
+    checkIndex(index);
+    double previous = values[index];
+    values[index] = value;
+    return previous;
+  }
+
+  public void addDouble(double value) {
+    if (size == values.length) {
+      grow(size + 1);
+    }
+    values[size++] = value;
+    modCount++;
+  }
+
+  public void addDouble(int index, double value) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    if (size == values.length) {
+      grow(size + 1);
+    }
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = value;
+    size++;
+    modCount++;
+  }
+
+  public double removeDoubleAt(int index) {
+    checkIndex(index);
+    double previous = values[index];
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    size--;
+    modCount++;
+    return previous;
+  }
+
+  @Nonnull
+  public double[] toDoubleArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+  public void ensureCapacity(int minCapacity) {
+    if (minCapacity > values.length) {
+      grow(minCapacity);
+    }
+  }
+
+  @Override
+  public Double get(int index) {
+    return getDouble(index);
+  }
+
+  @Override
+  public Double set(int index, Double element) {
+    return setDouble(index, element);
+  }
+
+  @Override
+  public void add(int index, Double element) {
+    addDouble(index, element);
+  }
+
+  @Override
+  public Double remove(int index) {
+    return removeDoubleAt(index);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+    modCount++;
+  }
+
+  private void grow(int minCapacity) {
+    values = Arrays.copyOf(values, Math.max(minCapacity, Math.max(10, values.length + (values.length >> 1))));
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+}
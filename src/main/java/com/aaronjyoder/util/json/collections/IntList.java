@@ -0,0 +1,132 @@
+package com.aaronjyoder.util.json.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import javax.annotation.Nonnull;
+
+/**
+ * A growable list of {@code int} values stored in a primitive array. The {@link java.util.List} methods box on access; use the {@code Int} variants to avoid
+ * that. Null elements are not permitted.
+ */
+public final class IntList extends AbstractList<Integer> implements RandomAccess {
+
+  private static final int[] EMPTY = {};
+
+  private int[] values;
+  private int size;
+
+  public IntList() {
+    this.values = EMPTY;
+  }
+
+  public IntList(int initialCapacity) {
+    if (initialCapacity < 0) {
+      throw new IllegalArgumentException("initialCapacity must not be negative");
+    }
+    this.values = initialCapacity == 0 ? EMPTY : new int[initialCapacity];
+  }
+
+  @Nonnull
+  public static IntList of(@Nonnull int... values) {
+    IntList list = new IntList(values.length);
+    System.arraycopy(values, 0, list.values, 0, values.length);
+    list.size = values.length;
+    return list;
+  }
+
+  public int getInt(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  public int setInt(int index, int value) {
+    checkIndex(index);
+    int previous = values[index];
+    values[index] = value;
+    return previous;
+  }
+
+  public void addInt(int value) {
+    if (size == values.length) {
+      grow(size + 1);
+    }
+    values[size++] = value;
+    modCount++;
+  }
+
+  public void addInt(int index, int value) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    if (size == values.length) {
+      grow(size + 1);
+    }
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = value;
+    size++;
+    modCount++;
+  }
+
+  public int removeIntAt(int index) {
+    checkIndex(index);
+    int previous = values[index];
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    size--;
+    modCount++;
+    return previous;
+  }
+
+  @Nonnull
+  public int[] toIntArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+  public void ensureCapacity(int minCapacity) {
+    if (minCapacity > values.length) {
+      grow(minCapacity);
+    }
+  }
+
+  @Override
+  public Integer get(int index) {
+    return getInt(index);
+  }
+
+  @Override
+  public Integer set(int index, Integer element) {
+    return setInt(index, element);
+  }
+
+  @Override
+  public void add(int index, Integer element) {
+    addInt(index, element);
+  }
+
+  @Override
+  public Integer remove(int index) {
+    return removeIntAt(index);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+    modCount++;
+  }
+
+  private void grow(int minCapacity) {
+    values = Arrays.copyOf(values, Math.max(minCapacity, Math.max(10, values.length + (values.length >> 1))));
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+}
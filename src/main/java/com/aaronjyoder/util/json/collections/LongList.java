@@ -0,0 +1,132 @@
+package com.aaronjyoder.util.json.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import javax.annotation.Nonnull;
+
+/**
+ * A growable list of {@code long} values stored in a primitive array. The {@link java.util.List} methods box on access; use the {@code Long}
+ * variants to avoid that. Null elements are not permitted.
+ */
+public final class LongList extends AbstractList<Long> implements RandomAccess {
+
+  private static final long[] EMPTY = {};
+
+  private long[] values;
+  private int size;
+
+  public LongList() {
+    this.values = EMPTY;
+  }
+
+  public LongList(int initialCapacity) {
+    if (initialCapacity < 0) {
+      throw new IllegalArgumentException("initialCapacity must not be negative");
+    }
+    this.values = initialCapacity == 0 ? EMPTY : new long[initialCapacity];
+  }
+
+  @Nonnull
+  public static LongList of(@Nonnull long... values) {
+    LongList list = new LongList(values.length);
+    System.arraycopy(values, 0, list.values, 0, values.length);
+    list.size = values.length;
+    return list;
+  }
+
+  public long getLong(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  public long setLong(int index, long value) {
+    checkIndex(index);
+    long previous = values[index];
+    values[index] = value;
+    return previous;
+  }
+
+  public void addLong(long value) {
+    if (size == values.length) {
+      grow(size + 1);
+    }
+    values[size++] = value;
+    modCount++;
+  }
+
+  public void addLong(int index, long value) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    if (size == values.length) {
+      grow(size + 1);
+    }
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = value;
+    size++;
+    modCount++;
+  }
+
+  public long removeLongAt(int index) {
+    checkIndex(index);
+    long previous = values[index];
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    size--;
+    modCount++;
+    return previous;
+  }
+
+  @Nonnull
+  public long[] toLongArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+  public void ensureCapacity(int minCapacity) {
+    if (minCapacity > values.length) {
+      grow(minCapacity);
+    }
+  }
+
+  @Override
+  public Long get(int index) {
+    return getLong(index);
+  }
+
+  @Override
+  public Long set(int index, Long element) {
+    return setLong(index, element);
+  }
+
+  @Override
+  public void add(int index, Long element) {
+    addLong(index, element);
+  }
+
+  @Override
+  public Long remove(int index) {
+    return removeLongAt(index);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+    modCount++;
+  }
+
+  private void grow(int minCapacity) {
+    values = Arrays.copyOf(values, Math.max(minCapacity, Math.max(10, values.length + (values.length >> 1))));
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+}
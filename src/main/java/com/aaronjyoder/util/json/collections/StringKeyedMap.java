@@ -0,0 +1,155 @@
+package com.aaronjyoder.util.json.collections;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import javax.annotation.Nonnull;
+
+/**
+ * Insertion-ordered {@code String} keys with an open-addressing index, shared by the string-to-primitive maps. Subclasses keep their values in a primitive
+ * array at the same positions as the keys.
+ */
+abstract class StringKeyedMap {
+
+  private static final String[] NO_KEYS = {};
+
+  String[] keys = NO_KEYS;
+  int size;
+  // Positions plus one, so that zero marks an empty slot; always at most half full
+  private int[] slots = new int[0];
+
+  // Called by subclass constructors once their value array exists
+  final void reserve(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("expectedSize must not be negative");
+    }
+    if (expectedSize > keys.length) {
+      resize(expectedSize);
+    }
+  }
+
+  public final int size() {
+    return size;
+  }
+
+  public final boolean isEmpty() {
+    return size == 0;
+  }
+
+  public final boolean containsKey(@Nonnull String key) {
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * The key at {@code index}, in insertion order.
+   */
+  @Nonnull
+  public final String keyAt(int index) {
+    checkIndex(index);
+    return keys[index];
+  }
+
+  /**
+   * Removes {@code key} and its value. Later entries move up one position, so this takes time proportional to the size of the map.
+   */
+  public final boolean remove(@Nonnull String key) {
+    int index = indexOf(key);
+    if (index < 0) {
+      return false;
+    }
+    System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+    removeValue(index, size - index - 1);
+    keys[--size] = null;
+    rehash();
+    return true;
+  }
+
+  public final void clear() {
+    Arrays.fill(keys, 0, size, null);
+    Arrays.fill(slots, 0);
+    size = 0;
+  }
+
+  final int indexOf(String key) {
+    if (size == 0) {
+      return -1;
+    }
+    int mask = slots.length - 1;
+    for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+      int position = slots[slot];
+      if (position == 0) {
+        return -1;
+      }
+      if (keys[position - 1].equals(key)) {
+        return position - 1;
+      }
+    }
+  }
+
+  final int indexOfExisting(String key) {
+    int index = indexOf(key);
+    if (index < 0) {
+      throw new NoSuchElementException(key);
+    }
+    return index;
+  }
+
+  /**
+   * Returns the position of {@code key}, appending it first if it is not present yet.
+   */
+  final int insert(String key) {
+    if (key == null) {
+      throw new NullPointerException("key");
+    }
+    int index = indexOf(key);
+    if (index >= 0) {
+      return index;
+    }
+    if (size == keys.length) {
+      resize(Math.max(8, size * 2));
+    }
+    keys[size] = key;
+    place(key, size);
+    return size++;
+  }
+
+  final void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  abstract void resizeValues(int capacity);
+
+  abstract void removeValue(int index, int trailing);
+
+  private void resize(int capacity) {
+    keys = Arrays.copyOf(keys, capacity);
+    resizeValues(capacity);
+    slots = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+    for (int i = 0; i < size; i++) {
+      place(keys[i], i);
+    }
+  }
+
+  private void rehash() {
+    Arrays.fill(slots, 0);
+    for (int i = 0; i < size; i++) {
+      place(keys[i], i);
+    }
+  }
+
+  private void place(String key, int index) {
+    int mask = slots.length - 1;
+    int slot = hash(key) & mask;
+    while (slots[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    slots[slot] = index + 1;
+  }
+
+  private static int hash(String key) {
+    int h = key.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+}
@@ -0,0 +1,101 @@
+package com.aaronjyoder.util.json.collections;
+
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+import javax.annotation.Nonnull;
+
+/**
+ * A map from {@code String} keys to {@code long} values that keeps values in a primitive array, in insertion order. It does not implement {@link java.util.Map}
+ * so that no method has to box; iterate with {@link #forEach(ObjLongConsumer)} or by position with {@link #keyAt(int)} and {@link #valueAt(int)}.
+ */
+public final class StringLongMap extends StringKeyedMap {
+
+  private static final long[] NO_VALUES = {};
+
+  private long[] values = NO_VALUES;
+
+  public StringLongMap() {
+    this(0);
+  }
+
+  public StringLongMap(int expectedSize) {
+    reserve(expectedSize);
+  }
+
+  /**
+   * @throws java.util.NoSuchElementException if {@code key} is not present
+   */
+  public long getLong(@Nonnull String key) {
+    return values[indexOfExisting(key)];
+  }
+
+  public long getOrDefault(@Nonnull String key, long defaultValue) {
+    int index = indexOf(key);
+    return index < 0 ? defaultValue : values[index];
+  }
+
+  public void put(@Nonnull String key, long value) {
+    int index = insert(key);
+    values[index] = value;
+  }
+
+  public long valueAt(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  public void forEach(@Nonnull ObjLongConsumer<String> action) {
+    for (int i = 0; i < size; i++) {
+      action.accept(keys[i], values[i]);
+    }
+  }
+
+  @Override
+  void resizeValues(int capacity) {
+    values = Arrays.copyOf(values, capacity);
+  }
+
+  @Override
+  void removeValue(int index, int trailing) {
+    System.arraycopy(values, index + 1, values, index, trailing);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof StringLongMap other) || other.size != size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      int index = other.indexOf(keys[i]);
+      if (index < 0 || other.values[index] != values[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 0;
+    for (int i = 0; i < size; i++) {
+      hash += keys[i].hashCode() ^ Long.hashCode(values[i]);
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("{");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(keys[i]).append('=').append(values[i]);
+    }
+    return builder.append('}').toString();
+  }
+
+}
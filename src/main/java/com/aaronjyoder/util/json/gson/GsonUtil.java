@@ -1,18 +1,47 @@
 package com.aaronjyoder.util.json.gson;
 
+import com.aaronjyoder.util.json.JsonArrayIndex;
+import com.aaronjyoder.util.json.JsonAsync;
+import com.aaronjyoder.util.json.JsonBackend;
+import com.aaronjyoder.util.json.JsonBulk;
+import com.aaronjyoder.util.json.JsonFiles;
+import com.aaronjyoder.util.json.JsonLines;
+import com.aaronjyoder.util.json.JsonPointers;
+import com.aaronjyoder.util.json.JsonStreams;
+import com.aaronjyoder.util.json.ReadOptions;
+import com.aaronjyoder.util.json.WriteOptions;
 import com.aaronjyoder.util.json.adapters.ColorAdapter;
 import com.aaronjyoder.util.json.adapters.InstantAdapter;
+import com.aaronjyoder.util.json.adapters.PackedAdapterFactory;
 import com.aaronjyoder.util.json.adapters.PointAdapter;
+import com.aaronjyoder.util.json.adapters.PrimitiveAdapterFactory;
 import com.aaronjyoder.util.json.adapters.RuntimeTypeAdapterFactory;
 import com.aaronjyoder.util.json.adapters.UUIDAdapter;
+import com.aaronjyoder.util.json.metrics.JsonMetrics;
+import com.aaronjyoder.util.json.metrics.JsonOperation;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import java.awt.Color;
 import java.awt.Point;
+import java.io.BufferedWriter;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
@@ -20,7 +49,16 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -29,45 +67,106 @@ public final class GsonUtil {
   private GsonUtil() {
   }
 
-  private static final GsonBuilder jsonAdapterBuilder = new GsonBuilder()
-      .registerTypeAdapter(Instant.class, new InstantAdapter())
-      .registerTypeAdapter(UUID.class, new UUIDAdapter())
-      .registerTypeAdapter(Point.class, new PointAdapter())
-      .registerTypeAdapter(Color.class, new ColorAdapter())
-      .setPrettyPrinting();
+  private static volatile Engine engine = new Engine(ImmutableList.of());
 
-  public static void register(RuntimeTypeAdapterFactory<?>... factories) {
-    for (RuntimeTypeAdapterFactory<?> factory : factories) {
-      jsonAdapterBuilder.registerTypeAdapterFactory(factory);
+  public static synchronized void register(RuntimeTypeAdapterFactory<?>... factories) {
+    engine = engine.with(factories);
+  }
+
+  private static <T> T fromJson(JsonReader jReader, Type type) throws IOException {
+    return fromJson(jReader, type, ReadOptions.DEFAULT);
+  }
+
+  private static <T> T fromJson(JsonReader jReader, Type type, ReadOptions options) throws IOException {
+    // Mirrors Gson#fromJson(JsonReader, Type), minus the per-call adapter lookup
+    jReader.setLenient(options.lenient() == null || options.lenient());
+    try {
+      jReader.peek();
+    } catch (EOFException e) {
+      return null;
+    }
+    try {
+      return engine.<T>adapter(type).read(jReader);
+    } catch (IllegalStateException | IOException e) {
+      throw new JsonSyntaxException(e);
     }
   }
 
+  private static <T> void toJson(Writer writer, T object, Type type) throws IOException {
+    toJson(writer, object, type, WriteOptions.DEFAULT);
+  }
+
+  private static <T> void toJson(Writer writer, T object, Type type, WriteOptions options) throws IOException {
+    Engine current = engine;
+    JsonWriter jWriter = newJsonWriter(writer, current.gson(), options);
+    current.<T>writeAdapter(type, options).write(jWriter, object);
+    jWriter.flush();
+  }
+
+  private static JsonWriter newJsonWriter(Writer writer, Gson gson, WriteOptions options) {
+    JsonWriter jWriter = new JsonWriter(writer);
+    jWriter.setIndent(options.indent() ? "  " : "");
+    jWriter.setSerializeNulls(serializeNulls(gson, options));
+    jWriter.setHtmlSafe(gson.htmlSafe());
+    jWriter.setLenient(true);
+    return jWriter;
+  }
+
+  private static boolean serializeNulls(Gson gson, WriteOptions options) {
+    return options.serializeNulls() == null ? gson.serializeNulls() : options.serializeNulls();
+  }
+
   // Read
 
   @Nullable
   public static <T> T read(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
-    if (Files.isRegularFile(path) && Files.isReadable(path)) {
-      JsonReader jReader = new JsonReader(Files.newBufferedReader(path, StandardCharsets.UTF_8));
-      return jsonAdapterBuilder.create().fromJson(jReader, type);
-    }
-    return null;
+    return read(path, (Type) type, ReadOptions.DEFAULT);
   }
 
   @Nullable
   public static <T> T read(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return read(path, type, ReadOptions.DEFAULT);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull ReadOptions options) throws IOException {
+    return read(path, (Type) type, options);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull Type type, @Nonnull ReadOptions options) throws IOException {
     if (Files.isRegularFile(path) && Files.isReadable(path)) {
-      JsonReader jReader = new JsonReader(Files.newBufferedReader(path, StandardCharsets.UTF_8));
-      return jsonAdapterBuilder.create().fromJson(jReader, type);
+      JsonMetrics.Probe probe = JsonMetrics.begin(JsonBackend.GSON, JsonOperation.Kind.READ, path, type);
+      Exception failure = null;
+      try (JsonReader jReader = new JsonReader(
+          new InputStreamReader(JsonMetrics.track(probe, JsonFiles.newInputStream(path, options)), StandardCharsets.UTF_8))) {
+        return fromJson(jReader, type, options);
+      } catch (IOException | RuntimeException e) {
+        failure = e;
+        throw e;
+      } finally {
+        JsonMetrics.end(probe, failure);
+      }
     }
     return null;
   }
 
+  @Nullable
+  public static <T> T readMapped(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return readMapped(path, (Type) type);
+  }
+
+  @Nullable
+  public static <T> T readMapped(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return read(path, type, ReadOptions.DEFAULT.withMemoryMapped(true));
+  }
+
   @Deprecated
   public static <T> T read(String file, Class<T> type) {
     File fileToRead = new File(file);
     if (fileToRead.exists()) {
       try (JsonReader jReader = new JsonReader(new FileReader(file, StandardCharsets.UTF_8))) {
-        return jsonAdapterBuilder.create().fromJson(jReader, type);
+        return fromJson(jReader, type);
       } catch (IOException e) {
         e.printStackTrace();
       }
@@ -80,7 +179,7 @@ public final class GsonUtil {
     File fileToRead = new File(file);
     if (fileToRead.exists()) {
       try (JsonReader jReader = new JsonReader(new FileReader(file, StandardCharsets.UTF_8))) {
-        return jsonAdapterBuilder.create().fromJson(jReader, type);
+        return fromJson(jReader, type);
       } catch (IOException e) {
         e.printStackTrace();
       }
@@ -88,24 +187,246 @@ public final class GsonUtil {
     return null;
   }
 
+  // Read a subtree
+
+  /**
+   * Reads only the value that {@code jsonPointer} refers to, such as {@code /settings/limits}, skipping every branch that does not lead to it and closing the
+   * file as soon as the value is read. Returns {@code null} if the file or the value does not exist.
+   */
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Class<T> type) throws IOException {
+    return read(path, jsonPointer, (Type) type, ReadOptions.DEFAULT);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Type type) throws IOException {
+    return read(path, jsonPointer, type, ReadOptions.DEFAULT);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Class<T> type, @Nonnull ReadOptions options) throws IOException {
+    return read(path, jsonPointer, (Type) type, options);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Type type, @Nonnull ReadOptions options) throws IOException {
+    List<String> tokens = JsonPointers.parse(jsonPointer);
+    if (Files.isRegularFile(path) && Files.isReadable(path)) {
+      try (JsonReader jReader = new JsonReader(new InputStreamReader(JsonFiles.newInputStream(path, options), StandardCharsets.UTF_8))) {
+        jReader.setLenient(options.lenient() == null || options.lenient());
+        for (String token : tokens) {
+          if (!seek(jReader, token)) {
+            return null;
+          }
+        }
+        return fromJson(jReader, type, options);
+      }
+    }
+    return null;
+  }
+
+  // Positions the reader on the member or element named by token of the value at the reader's position, skipping everything before it
+  private static boolean seek(JsonReader jReader, String token) throws IOException {
+    switch (jReader.peek()) {
+      case BEGIN_OBJECT:
+        jReader.beginObject();
+        while (jReader.hasNext()) {
+          if (jReader.nextName().equals(token)) {
+            return true;
+          }
+          jReader.skipValue();
+        }
+        return false;
+      case BEGIN_ARRAY:
+        int index = JsonPointers.index(token);
+        if (index < 0) {
+          return false;
+        }
+        jReader.beginArray();
+        for (int i = 0; i < index && jReader.hasNext(); i++) {
+          jReader.skipValue();
+        }
+        return jReader.hasNext();
+      default:
+        return false;
+    }
+  }
+
+  // Read by position
+
+  /**
+   * Reads element {@code index} of the top-level array in {@code path}. The file's {@link JsonArrayIndex} sidecar, which is built first if it is missing or
+   * stale, lets the read start next to the element instead of parsing every element before it.
+   *
+   * @return {@code null} if the file does not exist or the array has no element {@code index}
+   */
+  @Nullable
+  public static <T> T readAt(@Nonnull Path path, long index, @Nonnull Class<T> type) throws IOException {
+    return readAt(path, index, (Type) type);
+  }
+
+  @Nullable
+  public static <T> T readAt(@Nonnull Path path, long index, @Nonnull Type type) throws IOException {
+    List<T> values = readRange(path, index, index + 1, type);
+    return values.isEmpty() ? null : values.get(0);
+  }
+
+  /**
+   * Reads the elements from {@code from}, inclusive, to {@code to}, exclusive, of the top-level array in {@code path}, or fewer if the array ends first. Like
+   * {@link #readAt(Path, long, Type)}, it seeks through the file's {@link JsonArrayIndex} sidecar.
+   */
+  @Nonnull
+  public static <T> List<T> readRange(@Nonnull Path path, long from, long to, @Nonnull Class<T> type) throws IOException {
+    return readRange(path, from, to, (Type) type);
+  }
+
+  @Nonnull
+  public static <T> List<T> readRange(@Nonnull Path path, long from, long to, @Nonnull Type type) throws IOException {
+    if (to < from) {
+      throw new IllegalArgumentException("to must not be less than from");
+    }
+    List<T> values = new ArrayList<>((int) Math.min(to - from, 1024));
+    try (JsonArrayIndex.Slice slice = JsonArrayIndex.seek(path, from)) {
+      if (slice == null) {
+        return values;
+      }
+      TypeAdapter<T> adapter = engine.adapter(type);
+      JsonReader jReader = new JsonReader(new InputStreamReader(slice.in(), StandardCharsets.UTF_8));
+      jReader.setLenient(true);
+      jReader.beginArray();
+      for (long skip = slice.skip(); skip > 0 && jReader.hasNext(); skip--) {
+        jReader.skipValue();
+      }
+      for (long i = from; i < to && jReader.hasNext(); i++) {
+        values.add(adapter.read(jReader));
+      }
+    }
+    return values;
+  }
+
+  // Read lazily
+
+  @Nonnull
+  public static <T> Stream<T> readStream(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return readStream(path, (Type) type);
+  }
+
+  @Nonnull
+  public static <T> Stream<T> readStream(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+      return Stream.empty();
+    }
+    TypeAdapter<T> adapter = engine.adapter(type);
+    JsonReader jReader = open(path);
+    try {
+      jReader.beginArray();
+    } catch (IOException | RuntimeException e) {
+      jReader.close();
+      throw e;
+    }
+    return JsonStreams.lazy(action -> {
+      if (!jReader.hasNext()) {
+        jReader.endArray();
+        return false;
+      }
+      action.accept(adapter.read(jReader));
+      return true;
+    }, jReader);
+  }
+
+  @Nonnull
+  public static <V> Stream<Map.Entry<String, V>> readEntries(@Nonnull Path path, @Nonnull Class<V> type) throws IOException {
+    return readEntries(path, (Type) type);
+  }
+
+  @Nonnull
+  public static <V> Stream<Map.Entry<String, V>> readEntries(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+      return Stream.empty();
+    }
+    TypeAdapter<V> adapter = engine.adapter(type);
+    JsonReader jReader = open(path);
+    try {
+      jReader.beginObject();
+    } catch (IOException | RuntimeException e) {
+      jReader.close();
+      throw e;
+    }
+    return JsonStreams.lazy(action -> {
+      if (!jReader.hasNext()) {
+        jReader.endObject();
+        return false;
+      }
+      String name = jReader.nextName();
+      action.accept(new SimpleImmutableEntry<>(name, adapter.read(jReader)));
+      return true;
+    }, jReader);
+  }
+
+  private static JsonReader open(Path path) throws IOException {
+    JsonReader jReader = new JsonReader(new InputStreamReader(JsonFiles.newInputStream(path, ReadOptions.DEFAULT), StandardCharsets.UTF_8));
+    jReader.setLenient(true);
+    return jReader;
+  }
+
+  // Read asynchronously
+
+  @Nonnull
+  public static <T> CompletableFuture<T> readAsync(@Nonnull Path path, @Nonnull Class<T> type) {
+    return JsonAsync.supply(() -> read(path, type));
+  }
+
+  @Nonnull
+  public static <T> CompletableFuture<T> readAsync(@Nonnull Path path, @Nonnull Type type) {
+    return JsonAsync.supply(() -> read(path, type));
+  }
+
   // Write
 
   public static <T> void write(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object) throws IOException {
-    Files.createDirectories(path.getParent());
-    Files.writeString(path, jsonAdapterBuilder.create().toJson(object, type), StandardCharsets.UTF_8);
+    write(path, (Type) type, object, WriteOptions.DEFAULT);
   }
 
   public static <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) throws IOException {
+    write(path, type, object, WriteOptions.DEFAULT);
+  }
+
+  public static <T> void write(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object, @Nonnull WriteOptions options) throws IOException {
+    write(path, (Type) type, object, options);
+  }
+
+  public static <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) throws IOException {
     Files.createDirectories(path.getParent());
-    Files.writeString(path, jsonAdapterBuilder.create().toJson(object, type), StandardCharsets.UTF_8);
+    JsonMetrics.Probe probe = JsonMetrics.begin(JsonBackend.GSON, JsonOperation.Kind.WRITE, path, type);
+    Exception failure = null;
+    try {
+      JsonFiles.write(path, options, out -> JsonMetrics.track(probe, out), output(type, object, options));
+    } catch (IOException | RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      JsonMetrics.end(probe, failure);
+    }
+  }
+
+  /**
+   * Serializes {@code object} as one whole document, for callers that stage the file themselves such as {@link com.aaronjyoder.util.json.JsonWriteQueue}.
+   */
+  @Nonnull
+  public static <T> JsonFiles.Output output(@Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) {
+    return out -> {
+      try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+        toJson(writer, object, type, options);
+      }
+    };
   }
 
   @Deprecated
   public static <T> void write(String file, Class<T> type, T object) {
     try {
-      Writer writer = new FileWriter(file, StandardCharsets.UTF_8);
-      writer.write(jsonAdapterBuilder.create().toJson(object, type));
-      writer.close();
+      try (Writer writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+        toJson(writer, object, type);
+      }
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -114,23 +435,383 @@ public final class GsonUtil {
   @Deprecated
   public static <T> void write(String file, Type type, T object) {
     try {
-      Writer writer = new FileWriter(file, StandardCharsets.UTF_8);
-      writer.write(jsonAdapterBuilder.create().toJson(object, type));
-      writer.close();
+      try (Writer writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+        toJson(writer, object, type);
+      }
     } catch (IOException e) {
       e.printStackTrace();
     }
   }
 
+  // Write asynchronously
+
+  @Nonnull
+  public static <T> CompletableFuture<Void> writeAsync(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object) {
+    return JsonAsync.supply(() -> {
+      write(path, type, object);
+      return null;
+    });
+  }
+
+  @Nonnull
+  public static <T> CompletableFuture<Void> writeAsync(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) {
+    return JsonAsync.supply(() -> {
+      write(path, type, object);
+      return null;
+    });
+  }
+
+  // Bulk
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> readAll(@Nonnull Path directory, @Nonnull String glob, @Nonnull Class<T> type) throws IOException {
+    return readAll(directory, glob, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> readAll(@Nonnull Path directory, @Nonnull String glob, @Nonnull Type type) throws IOException {
+    return readAll(directory, glob, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> readAll(@Nonnull Path directory, @Nonnull String glob, @Nonnull Type type, int parallelism) throws IOException {
+    return JsonBulk.readAll(JsonBackend.GSON, directory, glob, type, parallelism);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> writeAll(@Nonnull Map<Path, ? extends T> objects, @Nonnull Class<T> type) throws IOException {
+    return writeAll(objects, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> writeAll(@Nonnull Map<Path, ? extends T> objects, @Nonnull Type type) throws IOException {
+    return writeAll(objects, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> writeAll(@Nonnull Map<Path, ? extends T> objects, @Nonnull Type type, int parallelism) throws IOException {
+    return JsonBulk.writeAll(JsonBackend.GSON, objects, type, parallelism);
+  }
+
+  // JSON Lines
+
+  /**
+   * Appends {@code object} as one compact line to the JSON Lines file at {@code path}, through the file's shared {@link JsonLines.Appender}.
+   */
+  public static <T> void append(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object) throws IOException {
+    append(path, (Type) type, object);
+  }
+
+  public static <T> void append(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) throws IOException {
+    JsonLines.append(path, lineEncoder(type, object));
+  }
+
+  @Nonnull
+  public static <T> Stream<T> readLines(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return readLines(path, (Type) type);
+  }
+
+  @Nonnull
+  public static <T> Stream<T> readLines(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return JsonLines.read(path, ReadOptions.DEFAULT, lineDecoder(type));
+  }
+
+  /**
+   * Like {@link #readLines(Path, Type)}, but splits the file on line boundaries and parses the parts in parallel.
+   */
+  @Nonnull
+  public static <T> Stream<T> readLinesParallel(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return readLinesParallel(path, (Type) type);
+  }
+
+  @Nonnull
+  public static <T> Stream<T> readLinesParallel(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return JsonLines.readParallel(path, ReadOptions.DEFAULT, lineDecoder(type));
+  }
+
+  /**
+   * Encodes {@code object} as one compact JSON Lines value, for {@link JsonLines} and {@link com.aaronjyoder.util.json.JsonStore}.
+   */
+  @Nonnull
+  public static <T> JsonLines.Encoder lineEncoder(@Nonnull Class<T> type, @Nonnull T object) {
+    return lineEncoder((Type) type, object);
+  }
+
+  @Nonnull
+  public static <T> JsonLines.Encoder lineEncoder(@Nonnull Type type, @Nonnull T object) {
+    return out -> toJson(new OutputStreamWriter(out, StandardCharsets.UTF_8), object, type, WriteOptions.COMPACT);
+  }
+
+  /**
+   * Decodes consecutive JSON Lines values, for {@link JsonLines} and {@link com.aaronjyoder.util.json.JsonStore}.
+   */
+  @Nonnull
+  public static <T> JsonLines.Decoder<T> lineDecoder(@Nonnull Class<T> type) {
+    return lineDecoder((Type) type);
+  }
+
+  @Nonnull
+  public static <T> JsonLines.Decoder<T> lineDecoder(@Nonnull Type type) {
+    TypeAdapter<T> adapter = engine.adapter(type);
+    return in -> {
+      JsonReader jReader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+      // Only a lenient reader moves on to another top-level value
+      jReader.setLenient(true);
+      return action -> {
+        try {
+          if (jReader.peek() == JsonToken.END_DOCUMENT) {
+            return false;
+          }
+        } catch (EOFException e) {
+          // Nothing but whitespace
+          return false;
+        }
+        action.accept(adapter.read(jReader));
+        return true;
+      };
+    };
+  }
+
+  // Patch
+
+  /**
+   * Applies an <a href="https://datatracker.ietf.org/doc/html/rfc7386">RFC 7386</a> JSON Merge Patch to the file at {@code path}. The file is streamed token by
+   * token into a temporary file, only the members that {@code mergePatch} names are merged, and the result atomically replaces the original.
+   */
+  public static void patch(@Nonnull Path path, @Nonnull JsonElement mergePatch) throws IOException {
+    patch(path, mergePatch, WriteOptions.DEFAULT);
+  }
+
+  public static void patch(@Nonnull Path path, @Nonnull JsonElement mergePatch, @Nonnull WriteOptions options) throws IOException {
+    Engine current = engine;
+    TypeAdapter<JsonElement> adapter = current.adapter(JsonElement.class);
+    JsonFiles.rewrite(path, ReadOptions.DEFAULT, options, (in, out) -> {
+      JsonReader jReader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+      jReader.setLenient(true);
+      JsonWriter jWriter = newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), current.gson(), options);
+      // Copied members keep their nulls; only merge patch nulls remove anything
+      jWriter.setSerializeNulls(true);
+      merge(jReader, jWriter, mergePatch, adapter);
+      jWriter.flush();
+      return true;
+    });
+  }
+
+  /**
+   * Replaces the value at {@code jsonPointer} with {@code value}, or adds it if only the last token of the pointer is missing (a new member of an object, or
+   * {@code -} or the length of an array to append). The file is streamed into a temporary file with everything else copied as is, and atomically replaces
+   * the original.
+   *
+   * @return {@code false}, leaving the file untouched, if the parent of the target does not exist
+   */
+  public static <T> boolean update(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Class<T> type, @Nullable T value) throws IOException {
+    return update(path, jsonPointer, (Type) type, value, WriteOptions.DEFAULT);
+  }
+
+  public static <T> boolean update(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Type type, @Nullable T value) throws IOException {
+    return update(path, jsonPointer, type, value, WriteOptions.DEFAULT);
+  }
+
+  public static <T> boolean update(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Class<T> type, @Nullable T value, @Nonnull WriteOptions options)
+      throws IOException {
+    return update(path, jsonPointer, (Type) type, value, options);
+  }
+
+  public static <T> boolean update(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Type type, @Nullable T value, @Nonnull WriteOptions options)
+      throws IOException {
+    List<String> tokens = JsonPointers.parse(jsonPointer);
+    Engine current = engine;
+    TypeAdapter<T> adapter = current.writeAdapter(type, options);
+    boolean serializeNulls = serializeNulls(current.gson(), options);
+    return JsonFiles.rewrite(path, ReadOptions.DEFAULT, options, (in, out) -> {
+      JsonReader jReader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+      jReader.setLenient(true);
+      JsonWriter jWriter = newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), current.gson(), options);
+      jWriter.setSerializeNulls(true);
+      boolean updated = update(jReader, jWriter, tokens, 0, () -> {
+        jWriter.setSerializeNulls(serializeNulls);
+        adapter.write(jWriter, value);
+        jWriter.setSerializeNulls(true);
+      });
+      jWriter.flush();
+      return updated;
+    });
+  }
+
+  @FunctionalInterface
+  private interface ValueWriter {
+
+    void write() throws IOException;
+
+  }
+
+  private static void merge(JsonReader in, JsonWriter out, JsonElement patch, TypeAdapter<JsonElement> adapter) throws IOException {
+    if (!patch.isJsonObject()) {
+      in.skipValue();
+      adapter.write(out, patch);
+      return;
+    }
+    if (in.peek() != JsonToken.BEGIN_OBJECT) {
+      in.skipValue();
+      writeMerged(out, patch, adapter);
+      return;
+    }
+    JsonObject members = patch.getAsJsonObject();
+    Set<String> merged = new HashSet<>();
+    in.beginObject();
+    out.beginObject();
+    while (in.hasNext()) {
+      String name = in.nextName();
+      JsonElement member = members.get(name);
+      if (member == null) {
+        out.name(name);
+        copy(in, out);
+      } else if (member.isJsonNull()) {
+        merged.add(name);
+        in.skipValue();
+      } else {
+        merged.add(name);
+        out.name(name);
+        merge(in, out, member, adapter);
+      }
+    }
+    for (Map.Entry<String, JsonElement> member : members.entrySet()) {
+      if (!merged.contains(member.getKey()) && !member.getValue().isJsonNull()) {
+        out.name(member.getKey());
+        writeMerged(out, member.getValue(), adapter);
+      }
+    }
+    in.endObject();
+    out.endObject();
+  }
+
+  // Merges patch into a value that is not an object, which leaves patch minus the members it removes
+  private static void writeMerged(JsonWriter out, JsonElement patch, TypeAdapter<JsonElement> adapter) throws IOException {
+    if (!patch.isJsonObject()) {
+      adapter.write(out, patch);
+      return;
+    }
+    out.beginObject();
+    for (Map.Entry<String, JsonElement> member : patch.getAsJsonObject().entrySet()) {
+      if (!member.getValue().isJsonNull()) {
+        out.name(member.getKey());
+        writeMerged(out, member.getValue(), adapter);
+      }
+    }
+    out.endObject();
+  }
+
+  private static boolean update(JsonReader in, JsonWriter out, List<String> tokens, int depth, ValueWriter value) throws IOException {
+    if (depth == tokens.size()) {
+      in.skipValue();
+      value.write();
+      return true;
+    }
+    String token = tokens.get(depth);
+    boolean last = depth == tokens.size() - 1;
+    boolean found = false;
+    switch (in.peek()) {
+      case BEGIN_OBJECT:
+        in.beginObject();
+        out.beginObject();
+        while (in.hasNext()) {
+          String name = in.nextName();
+          out.name(name);
+          if (!found && name.equals(token)) {
+            found = update(in, out, tokens, depth + 1, value);
+          } else {
+            copy(in, out);
+          }
+        }
+        if (!found && last) {
+          out.name(token);
+          value.write();
+          found = true;
+        }
+        in.endObject();
+        out.endObject();
+        return found;
+      case BEGIN_ARRAY:
+        int index = JsonPointers.index(token);
+        in.beginArray();
+        out.beginArray();
+        int size = 0;
+        for (; in.hasNext(); size++) {
+          if (size == index) {
+            found = update(in, out, tokens, depth + 1, value);
+          } else {
+            copy(in, out);
+          }
+        }
+        if (!found && last && (size == index || token.equals("-"))) {
+          value.write();
+          found = true;
+        }
+        in.endArray();
+        out.endArray();
+        return found;
+      default:
+        copy(in, out);
+        return false;
+    }
+  }
+
+  // Copies the next value token by token; numbers keep their exact literal
+  private static void copy(JsonReader in, JsonWriter out) throws IOException {
+    int depth = 0;
+    do {
+      switch (in.peek()) {
+        case BEGIN_ARRAY:
+          in.beginArray();
+          out.beginArray();
+          depth++;
+          break;
+        case END_ARRAY:
+          in.endArray();
+          out.endArray();
+          depth--;
+          break;
+        case BEGIN_OBJECT:
+          in.beginObject();
+          out.beginObject();
+          depth++;
+          break;
+        case END_OBJECT:
+          in.endObject();
+          out.endObject();
+          depth--;
+          break;
+        case NAME:
+          out.name(in.nextName());
+          break;
+        case STRING:
+          out.value(in.nextString());
+          break;
+        case NUMBER:
+          out.jsonValue(in.nextString());
+          break;
+        case BOOLEAN:
+          out.value(in.nextBoolean());
+          break;
+        case NULL:
+          in.nextNull();
+          out.nullValue();
+          break;
+        default:
+          throw new JsonSyntaxException("Unexpected end of document at path " + in.getPath());
+      }
+    } while (depth > 0);
+  }
+
   // Write with basic directory creation
 
   @Deprecated
   public static <T> void write(String directory, String fileName, Class<T> type, T object) {
     try {
       Files.createDirectories(Paths.get(directory));
-      Writer writer = new FileWriter(directory + fileName, StandardCharsets.UTF_8);
-      writer.write(jsonAdapterBuilder.create().toJson(object, type));
-      writer.close();
+      try (Writer writer = new BufferedWriter(new FileWriter(directory + fileName, StandardCharsets.UTF_8))) {
+        toJson(writer, object, type);
+      }
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -140,12 +821,61 @@ public final class GsonUtil {
   public static <T> void write(String directory, String fileName, Type type, T object) {
     try {
       Files.createDirectories(Paths.get(directory));
-      Writer writer = new FileWriter(directory + fileName, StandardCharsets.UTF_8);
-      writer.write(jsonAdapterBuilder.create().toJson(object, type));
-      writer.close();
+      try (Writer writer = new BufferedWriter(new FileWriter(directory + fileName, StandardCharsets.UTF_8))) {
+        toJson(writer, object, type);
+      }
     } catch (IOException e) {
       e.printStackTrace();
     }
   }
 
+  private static final class Engine {
+
+    private final ImmutableList<RuntimeTypeAdapterFactory<?>> factories;
+    private final Supplier<Gson> gson = Suppliers.memoize(() -> build(false));
+    private final Supplier<Gson> packedGson = Suppliers.memoize(() -> build(true));
+    private final Map<Type, TypeAdapter<?>> typeAdapters = new ConcurrentHashMap<>();
+    private final Map<Type, TypeAdapter<?>> packedTypeAdapters = new ConcurrentHashMap<>();
+
+    private Engine(ImmutableList<RuntimeTypeAdapterFactory<?>> factories) {
+      this.factories = factories;
+    }
+
+    private Engine with(RuntimeTypeAdapterFactory<?>... factories) {
+      return new Engine(ImmutableList.<RuntimeTypeAdapterFactory<?>>builder().addAll(this.factories).add(factories).build());
+    }
+
+    private Gson build(boolean packed) {
+      GsonBuilder builder = new GsonBuilder()
+          .registerTypeAdapter(Instant.class, new InstantAdapter())
+          .registerTypeAdapter(UUID.class, new UUIDAdapter())
+          .registerTypeAdapter(Point.class, new PointAdapter())
+          .registerTypeAdapter(Color.class, new ColorAdapter())
+          .registerTypeAdapterFactory(new PrimitiveAdapterFactory())
+          .registerTypeAdapterFactory(new PackedAdapterFactory(packed));
+      for (RuntimeTypeAdapterFactory<?> factory : factories) {
+        builder.registerTypeAdapterFactory(factory);
+      }
+      return builder.create();
+    }
+
+    private Gson gson() {
+      return gson.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> TypeAdapter<T> adapter(Type type) {
+      return (TypeAdapter<T>) JsonMetrics.lookup(JsonBackend.GSON, type, typeAdapters, type, t -> gson().getAdapter(TypeToken.get(t)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> TypeAdapter<T> writeAdapter(Type type, WriteOptions options) {
+      if (!options.packed()) {
+        return adapter(type);
+      }
+      return (TypeAdapter<T>) JsonMetrics.lookup(JsonBackend.GSON, type, packedTypeAdapters, type, t -> packedGson.get().getAdapter(TypeToken.get(t)));
+    }
+
+  }
+
 }
@@ -1,68 +1,152 @@
 package com.aaronjyoder.util.json.jackson;
 
+import com.aaronjyoder.util.json.JsonArrayIndex;
+import com.aaronjyoder.util.json.JsonAsync;
+import com.aaronjyoder.util.json.JsonBackend;
+import com.aaronjyoder.util.json.JsonBulk;
+import com.aaronjyoder.util.json.JsonFiles;
+import com.aaronjyoder.util.json.JsonLines;
+import com.aaronjyoder.util.json.JsonPointers;
+import com.aaronjyoder.util.json.JsonStreams;
+import com.aaronjyoder.util.json.ReadOptions;
+import com.aaronjyoder.util.json.WriteOptions;
+import com.aaronjyoder.util.json.adapters.JacksonAdapterModule;
+import com.aaronjyoder.util.json.adapters.PackedAdapterFactory;
+import com.aaronjyoder.util.json.adapters.PrimitiveAdapterFactory;
+import com.aaronjyoder.util.json.adapters.RuntimeTypeAdapterFactory;
+import com.aaronjyoder.util.json.metrics.JsonMetrics;
+import com.aaronjyoder.util.json.metrics.JsonOperation;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.JsonTokenId;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
+import java.io.InputStream;
 import java.lang.reflect.Type;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 public final class JacksonUtil {
 
-  private static JsonMapper.Builder jsonAdapterBuilder = JsonMapper.builder().addModule(new JavaTimeModule());
+  private static final JsonReadFeature[] LENIENT_FEATURES = {
+      JsonReadFeature.ALLOW_JAVA_COMMENTS,
+      JsonReadFeature.ALLOW_YAML_COMMENTS,
+      JsonReadFeature.ALLOW_SINGLE_QUOTES,
+      JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES,
+      JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS,
+      JsonReadFeature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER,
+      JsonReadFeature.ALLOW_LEADING_ZEROS_FOR_NUMBERS,
+      JsonReadFeature.ALLOW_LEADING_DECIMAL_POINT_FOR_NUMBERS,
+      JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS,
+      JsonReadFeature.ALLOW_TRAILING_COMMA
+  };
+
+  private static volatile Engine engine = new Engine(null, ImmutableList.of());
 
   private JacksonUtil() {
   }
 
-  public static void registerIfBaseType(final Class<?>... baseClasses) {
+  public static synchronized void register(RuntimeTypeAdapterFactory<?>... factories) {
+    engine = engine.with(factories);
+  }
+
+  public static synchronized void registerIfBaseType(final Class<?>... baseClasses) {
     var builder = BasicPolymorphicTypeValidator.builder();
     for (Class<?> baseClass : baseClasses) {
       builder.allowIfBaseType(baseClass);
     }
-    jsonAdapterBuilder = jsonAdapterBuilder.activateDefaultTypingAsProperty(builder.build(), DefaultTyping.NON_FINAL, "type");
+    engine = engine.with(builder.build());
   }
 
-  public static void registerIfSubType(final Class<?>... subClasses) {
+  public static synchronized void registerIfSubType(final Class<?>... subClasses) {
     var builder = BasicPolymorphicTypeValidator.builder();
     for (Class<?> subClass : subClasses) {
       builder.allowIfSubType(subClass);
     }
-    jsonAdapterBuilder = jsonAdapterBuilder.activateDefaultTypingAsProperty(builder.build(), DefaultTyping.NON_FINAL, "type");
+    engine = engine.with(builder.build());
   }
 
   // Read
 
   @Nullable
   public static <T> T read(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
-    if (Files.isRegularFile(path) && Files.isReadable(path)) {
-      return jsonAdapterBuilder.build().readValue(Files.newBufferedReader(path), type);
-    }
-    return null;
+    return read(path, (Type) type, ReadOptions.DEFAULT);
   }
 
   @Nullable
   public static <T> T read(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return read(path, type, ReadOptions.DEFAULT);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull ReadOptions options) throws IOException {
+    return read(path, (Type) type, options);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull Type type, @Nonnull ReadOptions options) throws IOException {
     if (Files.isRegularFile(path) && Files.isReadable(path)) {
-      return jsonAdapterBuilder.build().readValue(Files.newBufferedReader(path), jsonAdapterBuilder.build().constructType(type));
+      JsonMetrics.Probe probe = JsonMetrics.begin(JsonBackend.JACKSON, JsonOperation.Kind.READ, path, type);
+      Exception failure = null;
+      try (InputStream in = JsonMetrics.track(probe, JsonFiles.newInputStream(path, options))) {
+        return engine.reader(type, options).readValue(in);
+      } catch (IOException | RuntimeException e) {
+        failure = e;
+        throw e;
+      } finally {
+        JsonMetrics.end(probe, failure);
+      }
     }
     return null;
   }
 
+  @Nullable
+  public static <T> T readMapped(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return readMapped(path, (Type) type);
+  }
+
+  @Nullable
+  public static <T> T readMapped(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return read(path, type, ReadOptions.DEFAULT.withMemoryMapped(true));
+  }
+
   @Deprecated
   public static <T> T read(String file, Class<T> type) {
     File fileToRead = new File(file);
     if (fileToRead.exists()) {
       try {
-        return jsonAdapterBuilder.build().readValue(fileToRead, type);
+        return engine.reader(type).readValue(fileToRead);
       } catch (IOException e) {
         e.printStackTrace();
       }
@@ -75,7 +159,7 @@ public final class JacksonUtil {
     File fileToRead = new File(file);
     if (fileToRead.exists()) {
       try {
-        return jsonAdapterBuilder.build().readValue(fileToRead, jsonAdapterBuilder.build().constructType(type));
+        return engine.reader(type).readValue(fileToRead);
       } catch (IOException e) {
         e.printStackTrace();
       }
@@ -83,24 +167,239 @@ public final class JacksonUtil {
     return null;
   }
 
+  // Read a subtree
+
+  /**
+   * Reads only the value that {@code jsonPointer} refers to, such as {@code /settings/limits}, skipping every branch that does not lead to it and closing the
+   * file as soon as the value is read. Returns {@code null} if the file or the value does not exist.
+   */
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Class<T> type) throws IOException {
+    return read(path, jsonPointer, (Type) type, ReadOptions.DEFAULT);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Type type) throws IOException {
+    return read(path, jsonPointer, type, ReadOptions.DEFAULT);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Class<T> type, @Nonnull ReadOptions options) throws IOException {
+    return read(path, jsonPointer, (Type) type, options);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Type type, @Nonnull ReadOptions options) throws IOException {
+    List<String> tokens = JsonPointers.parse(jsonPointer);
+    if (Files.isRegularFile(path) && Files.isReadable(path)) {
+      ObjectReader reader = engine.reader(type, options);
+      try (JsonParser parser = reader.createParser(JsonFiles.newInputStream(path, options))) {
+        if (parser.nextToken() == null) {
+          return null;
+        }
+        for (String token : tokens) {
+          if (!seek(parser, token)) {
+            return null;
+          }
+        }
+        return reader.readValue(parser);
+      }
+    }
+    return null;
+  }
+
+  // Positions the parser on the member or element named by token of the value at the parser's position, skipping everything before it
+  private static boolean seek(JsonParser parser, String token) throws IOException {
+    if (parser.currentToken() == JsonToken.START_OBJECT) {
+      for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+        parser.nextToken();
+        if (name.equals(token)) {
+          return true;
+        }
+        parser.skipChildren();
+      }
+      return false;
+    }
+    if (parser.currentToken() == JsonToken.START_ARRAY) {
+      int index = JsonPointers.index(token);
+      if (index < 0) {
+        return false;
+      }
+      for (int i = 0; parser.nextToken() != JsonToken.END_ARRAY; i++) {
+        if (i == index) {
+          return true;
+        }
+        parser.skipChildren();
+      }
+    }
+    return false;
+  }
+
+  // Read by position
+
+  /**
+   * Reads element {@code index} of the top-level array in {@code path}. The file's {@link JsonArrayIndex} sidecar, which is built first if it is missing or
+   * stale, lets the read start next to the element instead of parsing every element before it.
+   *
+   * @return {@code null} if the file does not exist or the array has no element {@code index}
+   */
+  @Nullable
+  public static <T> T readAt(@Nonnull Path path, long index, @Nonnull Class<T> type) throws IOException {
+    return readAt(path, index, (Type) type);
+  }
+
+  @Nullable
+  public static <T> T readAt(@Nonnull Path path, long index, @Nonnull Type type) throws IOException {
+    List<T> values = readRange(path, index, index + 1, type);
+    return values.isEmpty() ? null : values.get(0);
+  }
+
+  /**
+   * Reads the elements from {@code from}, inclusive, to {@code to}, exclusive, of the top-level array in {@code path}, or fewer if the array ends first. Like
+   * {@link #readAt(Path, long, Type)}, it seeks through the file's {@link JsonArrayIndex} sidecar.
+   */
+  @Nonnull
+  public static <T> List<T> readRange(@Nonnull Path path, long from, long to, @Nonnull Class<T> type) throws IOException {
+    return readRange(path, from, to, (Type) type);
+  }
+
+  @Nonnull
+  public static <T> List<T> readRange(@Nonnull Path path, long from, long to, @Nonnull Type type) throws IOException {
+    if (to < from) {
+      throw new IllegalArgumentException("to must not be less than from");
+    }
+    List<T> values = new ArrayList<>((int) Math.min(to - from, 1024));
+    try (JsonArrayIndex.Slice slice = JsonArrayIndex.seek(path, from)) {
+      if (slice == null) {
+        return values;
+      }
+      ObjectReader reader = engine.reader(type);
+      try (JsonParser parser = engine.mapper().createParser(slice.in())) {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+          throw MismatchedInputException.from(parser, (Class<?>) null, "Expected " + JsonToken.START_ARRAY + " at the root of " + path);
+        }
+        for (long skip = slice.skip(); skip > 0 && parser.nextToken() != JsonToken.END_ARRAY; skip--) {
+          parser.skipChildren();
+        }
+        for (long i = from; i < to && parser.nextToken() != JsonToken.END_ARRAY; i++) {
+          values.add(reader.readValue(parser));
+        }
+      }
+    }
+    return values;
+  }
+
+  // Read lazily
+
+  @Nonnull
+  public static <T> Stream<T> readStream(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return readStream(path, (Type) type);
+  }
+
+  @Nonnull
+  public static <T> Stream<T> readStream(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+      return Stream.empty();
+    }
+    ObjectReader reader = engine.reader(type);
+    JsonParser parser = open(path, JsonToken.START_ARRAY);
+    return JsonStreams.lazy(action -> {
+      if (parser.nextToken() == JsonToken.END_ARRAY) {
+        return false;
+      }
+      action.accept(reader.readValue(parser));
+      return true;
+    }, parser);
+  }
+
+  @Nonnull
+  public static <V> Stream<Map.Entry<String, V>> readEntries(@Nonnull Path path, @Nonnull Class<V> type) throws IOException {
+    return readEntries(path, (Type) type);
+  }
+
+  @Nonnull
+  public static <V> Stream<Map.Entry<String, V>> readEntries(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+      return Stream.empty();
+    }
+    ObjectReader reader = engine.reader(type);
+    JsonParser parser = open(path, JsonToken.START_OBJECT);
+    return JsonStreams.lazy(action -> {
+      String name = parser.nextFieldName();
+      if (name == null) {
+        return false;
+      }
+      parser.nextToken();
+      action.accept(new SimpleImmutableEntry<>(name, reader.readValue(parser)));
+      return true;
+    }, parser);
+  }
+
+  private static JsonParser open(Path path, JsonToken expected) throws IOException {
+    JsonParser parser = engine.mapper().createParser(JsonFiles.newInputStream(path, ReadOptions.DEFAULT));
+    try {
+      if (parser.nextToken() != expected) {
+        throw MismatchedInputException.from(parser, (Class<?>) null, "Expected " + expected + " at the root of " + path);
+      }
+    } catch (IOException | RuntimeException e) {
+      parser.close();
+      throw e;
+    }
+    return parser;
+  }
+
+  // Read asynchronously
+
+  @Nonnull
+  public static <T> CompletableFuture<T> readAsync(@Nonnull Path path, @Nonnull Class<T> type) {
+    return JsonAsync.supply(() -> read(path, type));
+  }
+
+  @Nonnull
+  public static <T> CompletableFuture<T> readAsync(@Nonnull Path path, @Nonnull Type type) {
+    return JsonAsync.supply(() -> read(path, type));
+  }
+
   // Write
 
   public static <T> void write(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object) throws IOException {
-    Files.createDirectories(path.getParent());
-    Files.writeString(path, jsonAdapterBuilder.build().writerWithDefaultPrettyPrinter().writeValueAsString(object), StandardCharsets.UTF_8);
+    write(path, (Type) type, object, WriteOptions.DEFAULT);
   }
 
   public static <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) throws IOException {
+    write(path, type, object, WriteOptions.DEFAULT);
+  }
+
+  public static <T> void write(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object, @Nonnull WriteOptions options) throws IOException {
+    write(path, (Type) type, object, options);
+  }
+
+  public static <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) throws IOException {
     Files.createDirectories(path.getParent());
-    Files.writeString(path, jsonAdapterBuilder.build().writerWithDefaultPrettyPrinter().writeValueAsString(object), StandardCharsets.UTF_8);
+    JsonMetrics.Probe probe = JsonMetrics.begin(JsonBackend.JACKSON, JsonOperation.Kind.WRITE, path, type);
+    Exception failure = null;
+    try {
+      JsonFiles.write(path, options, out -> JsonMetrics.track(probe, out), output(type, object, options));
+    } catch (IOException | RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      JsonMetrics.end(probe, failure);
+    }
+  }
+
+  /**
+   * Serializes {@code object} as one whole document, for callers that stage the file themselves such as {@link com.aaronjyoder.util.json.JsonWriteQueue}.
+   */
+  @Nonnull
+  public static <T> JsonFiles.Output output(@Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) {
+    return out -> engine.writer(type, options).writeValue(out, object);
   }
 
   @Deprecated
   public static <T> void write(String file, Class<T> type, T object) {
     try {
-      Writer writer = new FileWriter(file, StandardCharsets.UTF_8);
-      writer.write(jsonAdapterBuilder.build().writerWithDefaultPrettyPrinter().writeValueAsString(object));
-      writer.close();
+      engine.writer(type, WriteOptions.DEFAULT).writeValue(new File(file), object);
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -109,23 +408,342 @@ public final class JacksonUtil {
   @Deprecated
   public static <T> void write(String file, Type type, T object) {
     try {
-      Writer writer = new FileWriter(file, StandardCharsets.UTF_8);
-      writer.write(jsonAdapterBuilder.build().writerWithDefaultPrettyPrinter().writeValueAsString(object));
-      writer.close();
+      engine.writer(type, WriteOptions.DEFAULT).writeValue(new File(file), object);
     } catch (IOException e) {
       e.printStackTrace();
     }
   }
 
+  // Write asynchronously
+
+  @Nonnull
+  public static <T> CompletableFuture<Void> writeAsync(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object) {
+    return JsonAsync.supply(() -> {
+      write(path, type, object);
+      return null;
+    });
+  }
+
+  @Nonnull
+  public static <T> CompletableFuture<Void> writeAsync(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) {
+    return JsonAsync.supply(() -> {
+      write(path, type, object);
+      return null;
+    });
+  }
+
+  // Bulk
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> readAll(@Nonnull Path directory, @Nonnull String glob, @Nonnull Class<T> type) throws IOException {
+    return readAll(directory, glob, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> readAll(@Nonnull Path directory, @Nonnull String glob, @Nonnull Type type) throws IOException {
+    return readAll(directory, glob, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> readAll(@Nonnull Path directory, @Nonnull String glob, @Nonnull Type type, int parallelism) throws IOException {
+    return JsonBulk.readAll(JsonBackend.JACKSON, directory, glob, type, parallelism);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> writeAll(@Nonnull Map<Path, ? extends T> objects, @Nonnull Class<T> type) throws IOException {
+    return writeAll(objects, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> writeAll(@Nonnull Map<Path, ? extends T> objects, @Nonnull Type type) throws IOException {
+    return writeAll(objects, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> writeAll(@Nonnull Map<Path, ? extends T> objects, @Nonnull Type type, int parallelism) throws IOException {
+    return JsonBulk.writeAll(JsonBackend.JACKSON, objects, type, parallelism);
+  }
+
+  // JSON Lines
+
+  /**
+   * Appends {@code object} as one compact line to the JSON Lines file at {@code path}, through the file's shared {@link JsonLines.Appender}.
+   */
+  public static <T> void append(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object) throws IOException {
+    append(path, (Type) type, object);
+  }
+
+  public static <T> void append(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) throws IOException {
+    JsonLines.append(path, lineEncoder(type, object));
+  }
+
+  @Nonnull
+  public static <T> Stream<T> readLines(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return readLines(path, (Type) type);
+  }
+
+  @Nonnull
+  public static <T> Stream<T> readLines(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return JsonLines.read(path, ReadOptions.DEFAULT, lineDecoder(type));
+  }
+
+  /**
+   * Like {@link #readLines(Path, Type)}, but splits the file on line boundaries and parses the parts in parallel.
+   */
+  @Nonnull
+  public static <T> Stream<T> readLinesParallel(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return readLinesParallel(path, (Type) type);
+  }
+
+  @Nonnull
+  public static <T> Stream<T> readLinesParallel(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return JsonLines.readParallel(path, ReadOptions.DEFAULT, lineDecoder(type));
+  }
+
+  /**
+   * Encodes {@code object} as one compact JSON Lines value, for {@link JsonLines} and {@link com.aaronjyoder.util.json.JsonStore}.
+   */
+  @Nonnull
+  public static <T> JsonLines.Encoder lineEncoder(@Nonnull Class<T> type, @Nonnull T object) {
+    return lineEncoder((Type) type, object);
+  }
+
+  @Nonnull
+  public static <T> JsonLines.Encoder lineEncoder(@Nonnull Type type, @Nonnull T object) {
+    ObjectWriter writer = engine.writer(type, WriteOptions.COMPACT);
+    return out -> writer.writeValue(out, object);
+  }
+
+  /**
+   * Decodes consecutive JSON Lines values, for {@link JsonLines} and {@link com.aaronjyoder.util.json.JsonStore}.
+   */
+  @Nonnull
+  public static <T> JsonLines.Decoder<T> lineDecoder(@Nonnull Class<T> type) {
+    return lineDecoder((Type) type);
+  }
+
+  @Nonnull
+  public static <T> JsonLines.Decoder<T> lineDecoder(@Nonnull Type type) {
+    ObjectReader reader = engine.reader(type);
+    return in -> {
+      MappingIterator<T> values = reader.readValues(in);
+      return action -> {
+        if (!values.hasNextValue()) {
+          return false;
+        }
+        action.accept(values.nextValue());
+        return true;
+      };
+    };
+  }
+
+  // Patch
+
+  /**
+   * Applies an <a href="https://datatracker.ietf.org/doc/html/rfc7386">RFC 7386</a> JSON Merge Patch to the file at {@code path}. The file is streamed token by
+   * token into a temporary file, only the members that {@code mergePatch} names are merged, and the result atomically replaces the original.
+   */
+  public static void patch(@Nonnull Path path, @Nonnull JsonNode mergePatch) throws IOException {
+    patch(path, mergePatch, WriteOptions.DEFAULT);
+  }
+
+  public static void patch(@Nonnull Path path, @Nonnull JsonNode mergePatch, @Nonnull WriteOptions options) throws IOException {
+    Engine current = engine;
+    ObjectWriter writer = current.writer(JsonNode.class, options);
+    JsonFiles.rewrite(path, ReadOptions.DEFAULT, options, (in, out) -> {
+      try (JsonParser parser = current.mapper().createParser(in); JsonGenerator generator = writer.createGenerator(out)) {
+        parser.nextToken();
+        merge(parser, generator, mergePatch);
+      }
+      return true;
+    });
+  }
+
+  /**
+   * Replaces the value at {@code jsonPointer} with {@code value}, or adds it if only the last token of the pointer is missing (a new member of an object, or
+   * {@code -} or the length of an array to append). The file is streamed into a temporary file with everything else copied as is, and atomically replaces
+   * the original.
+   *
+   * @return {@code false}, leaving the file untouched, if the parent of the target does not exist
+   */
+  public static <T> boolean update(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Class<T> type, @Nullable T value) throws IOException {
+    return update(path, jsonPointer, (Type) type, value, WriteOptions.DEFAULT);
+  }
+
+  public static <T> boolean update(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Type type, @Nullable T value) throws IOException {
+    return update(path, jsonPointer, type, value, WriteOptions.DEFAULT);
+  }
+
+  public static <T> boolean update(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Class<T> type, @Nullable T value, @Nonnull WriteOptions options)
+      throws IOException {
+    return update(path, jsonPointer, (Type) type, value, options);
+  }
+
+  public static <T> boolean update(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Type type, @Nullable T value, @Nonnull WriteOptions options)
+      throws IOException {
+    List<String> tokens = JsonPointers.parse(jsonPointer);
+    Engine current = engine;
+    ObjectWriter writer = current.writer(type, options);
+    return JsonFiles.rewrite(path, ReadOptions.DEFAULT, options, (in, out) -> {
+      try (JsonParser parser = current.mapper().createParser(in); JsonGenerator generator = writer.createGenerator(out)) {
+        parser.nextToken();
+        return update(parser, generator, tokens, 0, () -> writer.writeValue(generator, value));
+      }
+    });
+  }
+
+  @FunctionalInterface
+  private interface ValueWriter {
+
+    void write() throws IOException;
+
+  }
+
+  private static void merge(JsonParser parser, JsonGenerator generator, JsonNode patch) throws IOException {
+    if (!patch.isObject()) {
+      parser.skipChildren();
+      generator.writeTree(patch);
+      return;
+    }
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      writeMerged(generator, patch);
+      return;
+    }
+    Set<String> merged = new HashSet<>();
+    generator.writeStartObject();
+    for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+      parser.nextToken();
+      JsonNode member = patch.get(name);
+      if (member == null) {
+        generator.writeFieldName(name);
+        copy(parser, generator);
+      } else if (member.isNull()) {
+        merged.add(name);
+        parser.skipChildren();
+      } else {
+        merged.add(name);
+        generator.writeFieldName(name);
+        merge(parser, generator, member);
+      }
+    }
+    for (Iterator<Map.Entry<String, JsonNode>> members = patch.fields(); members.hasNext(); ) {
+      Map.Entry<String, JsonNode> member = members.next();
+      if (!merged.contains(member.getKey()) && !member.getValue().isNull()) {
+        generator.writeFieldName(member.getKey());
+        writeMerged(generator, member.getValue());
+      }
+    }
+    generator.writeEndObject();
+  }
+
+  // Merges patch into a value that is not an object, which leaves patch minus the members it removes
+  private static void writeMerged(JsonGenerator generator, JsonNode patch) throws IOException {
+    if (!patch.isObject()) {
+      generator.writeTree(patch);
+      return;
+    }
+    generator.writeStartObject();
+    for (Iterator<Map.Entry<String, JsonNode>> members = patch.fields(); members.hasNext(); ) {
+      Map.Entry<String, JsonNode> member = members.next();
+      if (!member.getValue().isNull()) {
+        generator.writeFieldName(member.getKey());
+        writeMerged(generator, member.getValue());
+      }
+    }
+    generator.writeEndObject();
+  }
+
+  private static boolean update(JsonParser parser, JsonGenerator generator, List<String> tokens, int depth, ValueWriter value) throws IOException {
+    if (depth == tokens.size()) {
+      parser.skipChildren();
+      value.write();
+      return true;
+    }
+    String token = tokens.get(depth);
+    boolean last = depth == tokens.size() - 1;
+    boolean found = false;
+    if (parser.currentToken() == JsonToken.START_OBJECT) {
+      generator.writeStartObject();
+      for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+        parser.nextToken();
+        generator.writeFieldName(name);
+        if (!found && name.equals(token)) {
+          found = update(parser, generator, tokens, depth + 1, value);
+        } else {
+          copy(parser, generator);
+        }
+      }
+      if (!found && last) {
+        generator.writeFieldName(token);
+        value.write();
+        found = true;
+      }
+      generator.writeEndObject();
+      return found;
+    }
+    if (parser.currentToken() == JsonToken.START_ARRAY) {
+      int index = JsonPointers.index(token);
+      generator.writeStartArray();
+      int size = 0;
+      for (; parser.nextToken() != JsonToken.END_ARRAY; size++) {
+        if (size == index) {
+          found = update(parser, generator, tokens, depth + 1, value);
+        } else {
+          copy(parser, generator);
+        }
+      }
+      if (!found && last && (size == index || token.equals("-"))) {
+        value.write();
+        found = true;
+      }
+      generator.writeEndArray();
+      return found;
+    }
+    copy(parser, generator);
+    return false;
+  }
+
+  // Copies the value at the parser's position token by token, leaving the parser on its last token; numbers keep their exact literal
+  private static void copy(JsonParser parser, JsonGenerator generator) throws IOException {
+    int depth = 0;
+    do {
+      switch (parser.currentTokenId()) {
+        case JsonTokenId.ID_START_OBJECT:
+          generator.writeStartObject();
+          depth++;
+          break;
+        case JsonTokenId.ID_START_ARRAY:
+          generator.writeStartArray();
+          depth++;
+          break;
+        case JsonTokenId.ID_END_OBJECT:
+          generator.writeEndObject();
+          depth--;
+          break;
+        case JsonTokenId.ID_END_ARRAY:
+          generator.writeEndArray();
+          depth--;
+          break;
+        case JsonTokenId.ID_NUMBER_INT:
+        case JsonTokenId.ID_NUMBER_FLOAT:
+          generator.writeNumber(parser.getText());
+          break;
+        case JsonTokenId.ID_NO_TOKEN:
+          throw new JsonEOFException(parser, null, "Unexpected end of document");
+        default:
+          generator.copyCurrentEvent(parser);
+      }
+    } while (depth > 0 && parser.nextToken() != null);
+  }
+
   // Write with basic directory creation
 
   @Deprecated
   public static <T> void write(String directory, String fileName, Class<T> type, T object) {
     try {
       Files.createDirectories(Paths.get(directory));
-      Writer writer = new FileWriter(directory + fileName, StandardCharsets.UTF_8);
-      writer.write(jsonAdapterBuilder.build().writerWithDefaultPrettyPrinter().writeValueAsString(object));
-      writer.close();
+      engine.writer(type, WriteOptions.DEFAULT).writeValue(new File(directory + fileName), object);
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -135,13 +753,88 @@ public final class JacksonUtil {
   public static <T> void write(String directory, String fileName, Type type, T object) {
     try {
       Files.createDirectories(Paths.get(directory));
-      Writer writer = new FileWriter(directory + fileName, StandardCharsets.UTF_8);
-      writer.write(jsonAdapterBuilder.build().writerWithDefaultPrettyPrinter().writeValueAsString(object));
-      writer.close();
+      engine.writer(type, WriteOptions.DEFAULT).writeValue(new File(directory + fileName), object);
     } catch (IOException e) {
       e.printStackTrace();
     }
   }
 
+  private static final class Engine {
+
+    private final PolymorphicTypeValidator typeValidator;
+    private final ImmutableList<RuntimeTypeAdapterFactory<?>> factories;
+    private final Supplier<JsonMapper> mapper = Suppliers.memoize(this::build);
+    private final Supplier<ObjectMapper> nonNullMapper = Suppliers.memoize(() -> mapper().copy().setSerializationInclusion(Include.NON_NULL));
+    private final Map<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Type, ObjectReader> lenientReaders = new ConcurrentHashMap<>();
+    private final Map<WriteOptions, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final Map<TypedWriter, ObjectWriter> typedWriters = new ConcurrentHashMap<>();
+
+    private Engine(@Nullable PolymorphicTypeValidator typeValidator, ImmutableList<RuntimeTypeAdapterFactory<?>> factories) {
+      this.typeValidator = typeValidator;
+      this.factories = factories;
+    }
+
+    private Engine with(PolymorphicTypeValidator typeValidator) {
+      return new Engine(typeValidator, factories);
+    }
+
+    private Engine with(RuntimeTypeAdapterFactory<?>... factories) {
+      return new Engine(typeValidator, ImmutableList.<RuntimeTypeAdapterFactory<?>>builder().addAll(this.factories).add(factories).build());
+    }
+
+    private JsonMapper build() {
+      JsonMapper.Builder builder = JsonMapper.builder()
+          .addModule(new JavaTimeModule())
+          .addModule(new JacksonAdapterModule())
+          .addModule(new PrimitiveAdapterFactory().jacksonModule())
+          .addModule(new PackedAdapterFactory().jacksonModule());
+      for (RuntimeTypeAdapterFactory<?> factory : factories) {
+        builder.addModule(factory.jacksonModule());
+      }
+      if (typeValidator != null) {
+        builder.activateDefaultTypingAsProperty(typeValidator, DefaultTyping.NON_FINAL, "type");
+      }
+      return builder.build();
+    }
+
+    private JsonMapper mapper() {
+      return mapper.get();
+    }
+
+    private ObjectReader reader(Type type) {
+      return JsonMetrics.lookup(JsonBackend.JACKSON, type, readers, type, t -> mapper().readerFor(mapper().constructType(t)));
+    }
+
+    private ObjectReader reader(Type type, ReadOptions options) {
+      if (!Boolean.TRUE.equals(options.lenient())) {
+        return reader(type);
+      }
+      return lenientReaders.computeIfAbsent(type, t -> reader(t).withFeatures(LENIENT_FEATURES));
+    }
+
+    // Class types resolve the serializer from the runtime class, as writerWithDefaultPrettyPrinter() always has. Generic types are bound, since erasure would
+    // otherwise lose what the element types are, and with it any type labels they need.
+    private ObjectWriter writer(Type type, WriteOptions options) {
+      if (type instanceof Class<?>) {
+        return writer(options);
+      }
+      return JsonMetrics.lookup(JsonBackend.JACKSON, type, typedWriters, new TypedWriter(type, options),
+          key -> writer(key.options()).forType(mapper().constructType(key.type())));
+    }
+
+    private ObjectWriter writer(WriteOptions options) {
+      return writers.computeIfAbsent(options, o -> {
+        ObjectMapper base = Boolean.FALSE.equals(o.serializeNulls()) ? nonNullMapper.get() : mapper();
+        ObjectWriter writer = o.indent() ? base.writerWithDefaultPrettyPrinter() : base.writer();
+        return o.packed() ? writer.withAttribute(PackedAdapterFactory.PACKED, Boolean.TRUE) : writer;
+      });
+    }
+
+  }
+
+  private record TypedWriter(Type type, WriteOptions options) {
+
+  }
 
 }
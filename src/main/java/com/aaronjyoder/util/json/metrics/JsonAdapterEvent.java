@@ -0,0 +1,24 @@
+package com.aaronjyoder.util.json.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for building an adapter, reader or writer that was not cached yet. The event's duration is the time it took.
+ */
+@Name("com.aaronjyoder.util.json.AdapterBuilt")
+@Label("JSON Adapter Built")
+@Category("JSON Utilities")
+@Description("A JSON util built and cached the adapter of a type")
+public final class JsonAdapterEvent extends Event {
+
+  @Label("Backend")
+  String backend;
+
+  @Label("Type")
+  String type;
+
+}
@@ -0,0 +1,265 @@
+package com.aaronjyoder.util.json.metrics;
+
+import com.aaronjyoder.util.json.JsonBackend;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import jdk.jfr.EventType;
+
+/**
+ * Instrumentation of the utils' whole-file reads and writes and of their adapter caches. Measurements go to the installed {@link JsonMetricsListener}
+ * and, while a Flight Recorder recording has them enabled, to {@link JsonOperationEvent} and {@link JsonAdapterEvent}.
+ * <p>
+ * Operations are the {@code read}, {@code readMapped} and {@code write} calls that bind one whole document, including those made by {@code readAll},
+ * {@code writeAll}, the async variants, {@link com.aaronjyoder.util.json.JsonWriteQueue} and {@link com.aaronjyoder.util.json.JsonStore}'s manifest. Reads of
+ * a subtree or of array elements by position, lazy streams, JSON Lines, patches and updates, and {@code SmileUtil.convert} are not measured: they touch only
+ * part of a file, outlive the call or read and write at once, which one {@link JsonOperation} cannot describe. Adapter cache lookups are measured whichever
+ * call makes them.
+ * <p>
+ * With no listener installed and no recording running, {@link #begin} returns {@code null} without allocating and every other method is a null check, so the
+ * disabled cost is one volatile read and one enabled check of the event type per operation, and one volatile read per adapter lookup.
+ */
+public final class JsonMetrics {
+
+  private static final EventType OPERATION_EVENT = EventType.getEventType(JsonOperationEvent.class);
+
+  private static volatile JsonMetricsListener listener;
+
+  private JsonMetrics() {
+  }
+
+  @Nullable
+  public static JsonMetricsListener listener() {
+    return listener;
+  }
+
+  /**
+   * Installs {@code listener} in place of the current one; {@code null} turns listening off.
+   */
+  public static void setListener(@Nullable JsonMetricsListener listener) {
+    JsonMetrics.listener = listener;
+  }
+
+  /**
+   * Measures one read or write, for the utils. Wrap the file stream with {@link #track(Probe, InputStream)} or {@link #track(Probe, OutputStream)} and call
+   * {@link #end(Probe, Exception)} once it is closed.
+   *
+   * @return {@code null} when nobody would see the measurement
+   */
+  @Nullable
+  public static Probe begin(@Nonnull JsonBackend backend, @Nonnull JsonOperation.Kind kind, @Nonnull Path path, @Nonnull Type type) {
+    JsonMetricsListener current = listener;
+    if (current == null && !OPERATION_EVENT.isEnabled()) {
+      return null;
+    }
+    return new Probe(current, new JsonOperationEvent(), backend, kind, path, type);
+  }
+
+  @Nonnull
+  public static InputStream track(@Nullable Probe probe, @Nonnull InputStream in) {
+    return probe == null ? in : probe.new TrackedInputStream(in);
+  }
+
+  @Nonnull
+  public static OutputStream track(@Nullable Probe probe, @Nonnull OutputStream out) {
+    return probe == null ? out : probe.new TrackedOutputStream(out);
+  }
+
+  public static void end(@Nullable Probe probe, @Nullable Exception failure) {
+    if (probe != null) {
+      probe.end(failure);
+    }
+  }
+
+  /**
+   * Returns the value cached for {@code key}, building it with {@code builder} if there is none yet, and reports the hit or the build for {@code type}.
+   */
+  @Nonnull
+  public static <K, A> A lookup(@Nonnull JsonBackend backend, @Nonnull Type type, @Nonnull Map<K, A> cache, @Nonnull K key,
+      @Nonnull Function<? super K, ? extends A> builder) {
+    A cached = cache.get(key);
+    if (cached != null) {
+      JsonMetricsListener current = listener;
+      if (current != null) {
+        current.onAdapterHit(backend, type);
+      }
+      return cached;
+    }
+    return cache.computeIfAbsent(key, k -> {
+      JsonAdapterEvent event = new JsonAdapterEvent();
+      event.begin();
+      long start = System.nanoTime();
+      A built = builder.apply(k);
+      long nanos = System.nanoTime() - start;
+      event.end();
+      if (event.shouldCommit()) {
+        event.backend = backend.name();
+        event.type = type.getTypeName();
+        event.commit();
+      }
+      JsonMetricsListener current = listener;
+      if (current != null) {
+        current.onAdapterBuilt(backend, type, nanos);
+      }
+      return built;
+    });
+  }
+
+  /**
+   * One operation in progress. Not thread-safe; it belongs to the thread that began it.
+   */
+  public static final class Probe {
+
+    private final JsonMetricsListener listener;
+    private final JsonOperationEvent event;
+    private final JsonBackend backend;
+    private final JsonOperation.Kind kind;
+    private final Path path;
+    private final Type type;
+    private final long start;
+    private long bytes;
+    private long ioNanos;
+    private boolean ended;
+
+    private Probe(JsonMetricsListener listener, JsonOperationEvent event, JsonBackend backend, JsonOperation.Kind kind, Path path, Type type) {
+      this.listener = listener;
+      this.event = event;
+      this.backend = backend;
+      this.kind = kind;
+      this.path = path;
+      this.type = type;
+      event.begin();
+      this.start = System.nanoTime();
+    }
+
+    private void end(Exception failure) {
+      if (ended) {
+        return;
+      }
+      ended = true;
+      long totalNanos = System.nanoTime() - start;
+      event.end();
+      if (event.shouldCommit()) {
+        event.backend = backend.name();
+        event.operation = kind.name();
+        event.path = path.toString();
+        event.type = type.getTypeName();
+        event.bytes = bytes;
+        event.ioDuration = ioNanos;
+        event.codecDuration = Math.max(0, totalNanos - ioNanos);
+        event.failure = failure == null ? null : failure.toString();
+        event.commit();
+      }
+      if (listener != null) {
+        listener.onOperation(new JsonOperation(backend, kind, path, type, bytes, ioNanos, totalNanos, failure));
+      }
+    }
+
+    private final class TrackedInputStream extends FilterInputStream {
+
+      private TrackedInputStream(InputStream in) {
+        super(in);
+      }
+
+      @Override
+      public int read() throws IOException {
+        long start = System.nanoTime();
+        try {
+          int b = in.read();
+          if (b != -1) {
+            bytes++;
+          }
+          return b;
+        } finally {
+          ioNanos += System.nanoTime() - start;
+        }
+      }
+
+      @Override
+      public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        try {
+          int read = in.read(b, off, len);
+          if (read > 0) {
+            bytes += read;
+          }
+          return read;
+        } finally {
+          ioNanos += System.nanoTime() - start;
+        }
+      }
+
+      @Override
+      public void close() throws IOException {
+        long start = System.nanoTime();
+        try {
+          in.close();
+        } finally {
+          ioNanos += System.nanoTime() - start;
+        }
+      }
+
+    }
+
+    private final class TrackedOutputStream extends FilterOutputStream {
+
+      private TrackedOutputStream(OutputStream out) {
+        super(out);
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+        long start = System.nanoTime();
+        try {
+          out.write(b);
+          bytes++;
+        } finally {
+          ioNanos += System.nanoTime() - start;
+        }
+      }
+
+      @Override
+      public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        try {
+          out.write(b, off, len);
+          bytes += len;
+        } finally {
+          ioNanos += System.nanoTime() - start;
+        }
+      }
+
+      @Override
+      public void flush() throws IOException {
+        long start = System.nanoTime();
+        try {
+          out.flush();
+        } finally {
+          ioNanos += System.nanoTime() - start;
+        }
+      }
+
+      // Closing flushes, finishes compression and forces the file, all of which is I/O
+      @Override
+      public void close() throws IOException {
+        long start = System.nanoTime();
+        try {
+          out.close();
+        } finally {
+          ioNanos += System.nanoTime() - start;
+        }
+      }
+
+    }
+
+  }
+
+}
@@ -0,0 +1,30 @@
+package com.aaronjyoder.util.json.metrics;
+
+import com.aaronjyoder.util.json.JsonBackend;
+import java.lang.reflect.Type;
+import javax.annotation.Nonnull;
+
+/**
+ * Receives the measurements of the utils once installed with {@link JsonMetrics#setListener(JsonMetricsListener)}. Methods are called on the thread that did
+ * the work, in the middle of the caller's read or write, so they must be fast, thread-safe, and must not throw.
+ */
+public interface JsonMetricsListener {
+
+  /**
+   * Called after every whole-file read or write, whether it succeeded or not.
+   */
+  void onOperation(@Nonnull JsonOperation operation);
+
+  /**
+   * Called when a util finds the adapter, reader or writer for {@code type} in its cache.
+   */
+  default void onAdapterHit(@Nonnull JsonBackend backend, @Nonnull Type type) {
+  }
+
+  /**
+   * Called when a util had to build the adapter, reader or writer for {@code type}, which took {@code nanos}.
+   */
+  default void onAdapterBuilt(@Nonnull JsonBackend backend, @Nonnull Type type, long nanos) {
+  }
+
+}
@@ -0,0 +1,131 @@
+package com.aaronjyoder.util.json.metrics;
+
+import com.aaronjyoder.util.json.JsonBackend;
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link JsonMetricsListener} that keeps counters and latency histograms per backend, operation and type, so that the slowest types can be found from a
+ * {@link #summary()} without attaching a profiler.
+ * <p>
+ * Latencies are kept in power-of-two buckets, so percentiles are upper bounds that are at most twice the true value.
+ */
+public final class JsonMetricsRecorder implements JsonMetricsListener {
+
+  private final Map<Key, Stats> stats = new ConcurrentHashMap<>();
+  private final LongAdder adapterHits = new LongAdder();
+  private final LongAdder adapterBuilds = new LongAdder();
+  private final LongAdder adapterBuildNanos = new LongAdder();
+
+  public record Key(@Nonnull JsonBackend backend, @Nonnull JsonOperation.Kind kind, @Nonnull Type type) {
+
+  }
+
+  public record Summary(long count, long failures, long bytes, long totalNanos, long ioNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+
+    /**
+     * Megabytes per second of wall time spent in the operations, or {@code 0} if none took measurable time.
+     */
+    public double throughputMBps() {
+      return totalNanos == 0 ? 0 : bytes * 1e3 / totalNanos;
+    }
+
+  }
+
+  @Override
+  public void onOperation(@Nonnull JsonOperation operation) {
+    stats.computeIfAbsent(new Key(operation.backend(), operation.kind(), operation.type()), key -> new Stats()).record(operation);
+  }
+
+  @Override
+  public void onAdapterHit(@Nonnull JsonBackend backend, @Nonnull Type type) {
+    adapterHits.increment();
+  }
+
+  @Override
+  public void onAdapterBuilt(@Nonnull JsonBackend backend, @Nonnull Type type, long nanos) {
+    adapterBuilds.increment();
+    adapterBuildNanos.add(nanos);
+  }
+
+  @Nonnull
+  public Map<Key, Summary> summary() {
+    Map<Key, Summary> summary = new LinkedHashMap<>();
+    stats.forEach((key, value) -> summary.put(key, value.summary()));
+    return summary;
+  }
+
+  public long adapterHits() {
+    return adapterHits.sum();
+  }
+
+  public long adapterBuilds() {
+    return adapterBuilds.sum();
+  }
+
+  public long adapterBuildNanos() {
+    return adapterBuildNanos.sum();
+  }
+
+  public void reset() {
+    stats.clear();
+    adapterHits.reset();
+    adapterBuilds.reset();
+    adapterBuildNanos.reset();
+  }
+
+  private static final class Stats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder ioNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    // Bucket i counts latencies from 2^(i-1) up to 2^i nanoseconds, exclusive
+    private final AtomicLongArray latencies = new AtomicLongArray(64);
+
+    void record(JsonOperation operation) {
+      count.increment();
+      if (!operation.isSuccess()) {
+        failures.increment();
+      }
+      bytes.add(operation.bytes());
+      totalNanos.add(operation.totalNanos());
+      ioNanos.add(operation.ioNanos());
+      maxNanos.accumulate(operation.totalNanos());
+      latencies.incrementAndGet(64 - Long.numberOfLeadingZeros(Math.max(0, operation.totalNanos())));
+    }
+
+    Summary summary() {
+      long[] buckets = new long[latencies.length()];
+      long total = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = latencies.get(i);
+        total += buckets[i];
+      }
+      return new Summary(count.sum(), failures.sum(), bytes.sum(), totalNanos.sum(), ioNanos.sum(), percentile(buckets, total, 0.5),
+          percentile(buckets, total, 0.99), maxNanos.get());
+    }
+
+    private static long percentile(long[] buckets, long total, double fraction) {
+      long rank = (long) Math.ceil(total * fraction);
+      long seen = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        seen += buckets[i];
+        if (seen >= rank && seen > 0) {
+          return i == 63 ? Long.MAX_VALUE : 1L << i;
+        }
+      }
+      return 0;
+    }
+
+  }
+
+}
@@ -0,0 +1,32 @@
+package com.aaronjyoder.util.json.metrics;
+
+import com.aaronjyoder.util.json.JsonBackend;
+import java.lang.reflect.Type;
+import java.nio.file.Path;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * One whole-file read or write, as reported to a {@link JsonMetricsListener}; {@link JsonMetrics} lists which calls report one.
+ * <p>
+ * {@code bytes} counts the JSON (or Smile) text that went through the parser or serializer, before compression. {@code ioNanos} is the time the backend spent
+ * waiting on the file stream, including any inflating or deflating and, for writes, the final flush and fsync. The backends bind objects while they parse, so
+ * parsing and binding are reported together as {@link #codecNanos()}.
+ */
+public record JsonOperation(@Nonnull JsonBackend backend, @Nonnull Kind kind, @Nonnull Path path, @Nonnull Type type, long bytes, long ioNanos,
+                            long totalNanos, @Nullable Exception failure) {
+
+  public enum Kind {
+    READ,
+    WRITE
+  }
+
+  public long codecNanos() {
+    return Math.max(0, totalNanos - ioNanos);
+  }
+
+  public boolean isSuccess() {
+    return failure == null;
+  }
+
+}
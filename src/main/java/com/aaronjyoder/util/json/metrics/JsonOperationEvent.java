@@ -0,0 +1,47 @@
+package com.aaronjyoder.util.json.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one whole-file read or write; see {@link JsonOperation} for what the fields measure.
+ */
+@Name("com.aaronjyoder.util.json.Operation")
+@Label("JSON File Operation")
+@Category("JSON Utilities")
+@Description("A whole-file read or write by one of the JSON utils")
+public final class JsonOperationEvent extends Event {
+
+  @Label("Backend")
+  String backend;
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Path")
+  String path;
+
+  @Label("Type")
+  String type;
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+
+  @Label("I/O Time")
+  @Timespan
+  long ioDuration;
+
+  @Label("Parse and Bind Time")
+  @Timespan
+  long codecDuration;
+
+  @Label("Failure")
+  String failure;
+
+}
@@ -1,56 +1,64 @@
 package com.aaronjyoder.util.json.moshi;
 
+import com.aaronjyoder.util.json.JsonArrayIndex;
+import com.aaronjyoder.util.json.JsonAsync;
+import com.aaronjyoder.util.json.JsonBackend;
+import com.aaronjyoder.util.json.JsonBulk;
+import com.aaronjyoder.util.json.JsonFiles;
+import com.aaronjyoder.util.json.JsonLines;
+import com.aaronjyoder.util.json.JsonPointers;
+import com.aaronjyoder.util.json.JsonStreams;
+import com.aaronjyoder.util.json.ReadOptions;
+import com.aaronjyoder.util.json.WriteOptions;
 import com.aaronjyoder.util.json.adapters.ColorAdapter;
 import com.aaronjyoder.util.json.adapters.InstantAdapter;
+import com.aaronjyoder.util.json.adapters.PackedAdapterFactory;
 import com.aaronjyoder.util.json.adapters.PointAdapter;
+import com.aaronjyoder.util.json.adapters.PrimitiveAdapterFactory;
 import com.aaronjyoder.util.json.adapters.RuntimeTypeAdapterFactory;
 import com.aaronjyoder.util.json.adapters.UUIDAdapter;
+import com.aaronjyoder.util.json.metrics.JsonMetrics;
+import com.aaronjyoder.util.json.metrics.JsonOperation;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
 import com.squareup.moshi.Moshi;
 import dev.zacsweers.moshix.records.RecordsJsonAdapterFactory;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
 import java.lang.reflect.Type;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
 
 public final class MoshiUtil {
 
   private MoshiUtil() {
   }
 
-  private static final Moshi.Builder jsonAdapterBuilder = new Moshi.Builder()
-      .add(new RecordsJsonAdapterFactory())
-      .add(new InstantAdapter())
-      .add(new UUIDAdapter())
-      .add(new PointAdapter())
-      .add(new ColorAdapter());
+  private static volatile Engine engine = new Engine(ImmutableList.of());
 
-  public static void register(RuntimeTypeAdapterFactory<?>... factories) {
-    for (RuntimeTypeAdapterFactory<?> factory : factories) {
-      jsonAdapterBuilder.add(factory);
-    }
-  }
-
-  private static Moshi jsonAdapter(RuntimeTypeAdapterFactory<?>... factories) {
-    Moshi.Builder builder = new Moshi.Builder()
-        .add(new RecordsJsonAdapterFactory())
-        .add(new InstantAdapter())
-        .add(new UUIDAdapter())
-        .add(new PointAdapter())
-        .add(new ColorAdapter());
-
-    for (RuntimeTypeAdapterFactory<?> factory : factories) {
-      builder.add(factory);
-    }
-
-    return builder.build();
+  public static synchronized void register(RuntimeTypeAdapterFactory<?>... factories) {
+    engine = engine.with(factories);
   }
 
   @Deprecated
@@ -65,28 +73,58 @@ public final class MoshiUtil {
 
   @Nullable
   public static <T> T read(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
-    if (Files.isRegularFile(path) && Files.isReadable(path)) {
-      JsonAdapter<T> jsonAdapter = jsonAdapter().adapter(type);
-      return jsonAdapter.fromJson(Files.readString(path));
-    }
-    return null;
+    return read(path, (Type) type, ReadOptions.DEFAULT);
   }
 
   @Nullable
   public static <T> T read(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return read(path, type, ReadOptions.DEFAULT);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull ReadOptions options) throws IOException {
+    return read(path, (Type) type, options);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull Type type, @Nonnull ReadOptions options) throws IOException {
     if (Files.isRegularFile(path) && Files.isReadable(path)) {
-      JsonAdapter<T> jsonAdapter = jsonAdapter().adapter(type);
-      return jsonAdapter.fromJson(Files.readString(path));
+      JsonMetrics.Probe probe = JsonMetrics.begin(JsonBackend.MOSHI, JsonOperation.Kind.READ, path, type);
+      Exception failure = null;
+      try (BufferedSource source = Okio.buffer(Okio.source(JsonMetrics.track(probe, JsonFiles.newInputStream(path, options))))) {
+        // Like JsonAdapter#fromJson(String), which the stream overload does not check
+        JsonReader reader = JsonReader.of(source);
+        T value = engine.<T>readAdapter(type, options).fromJson(reader);
+        if (!Boolean.TRUE.equals(options.lenient()) && reader.peek() != JsonReader.Token.END_DOCUMENT) {
+          throw new JsonDataException("JSON document was not fully consumed.");
+        }
+        return value;
+      } catch (IOException | RuntimeException e) {
+        failure = e;
+        throw e;
+      } finally {
+        JsonMetrics.end(probe, failure);
+      }
     }
     return null;
   }
 
+  @Nullable
+  public static <T> T readMapped(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return readMapped(path, (Type) type);
+  }
+
+  @Nullable
+  public static <T> T readMapped(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return read(path, type, ReadOptions.DEFAULT.withMemoryMapped(true));
+  }
+
   @Deprecated
   public static <T> T read(String file, Class<T> type) {
     File fileToRead = new File(file);
     if (fileToRead.exists()) {
       try {
-        JsonAdapter<T> jsonAdapter = jsonAdapter().adapter(type);
+        JsonAdapter<T> jsonAdapter = engine.adapter(type);
         return jsonAdapter.fromJson(fileToString(fileToRead));
       } catch (IOException e) {
         e.printStackTrace();
@@ -100,7 +138,7 @@ public final class MoshiUtil {
     File fileToRead = new File(file);
     if (fileToRead.exists()) {
       try {
-        JsonAdapter<T> jsonAdapter = jsonAdapter().adapter(type);
+        JsonAdapter<T> jsonAdapter = engine.adapter(type);
         return jsonAdapter.fromJson(fileToString(fileToRead));
       } catch (IOException e) {
         e.printStackTrace();
@@ -109,24 +147,238 @@ public final class MoshiUtil {
     return null;
   }
 
+  // Read a subtree
+
+  /**
+   * Reads only the value that {@code jsonPointer} refers to, such as {@code /settings/limits}, skipping every branch that does not lead to it and closing the
+   * file as soon as the value is read. Returns {@code null} if the file or the value does not exist.
+   */
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Class<T> type) throws IOException {
+    return read(path, jsonPointer, (Type) type, ReadOptions.DEFAULT);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Type type) throws IOException {
+    return read(path, jsonPointer, type, ReadOptions.DEFAULT);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Class<T> type, @Nonnull ReadOptions options) throws IOException {
+    return read(path, jsonPointer, (Type) type, options);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Type type, @Nonnull ReadOptions options) throws IOException {
+    List<String> tokens = JsonPointers.parse(jsonPointer);
+    if (Files.isRegularFile(path) && Files.isReadable(path)) {
+      try (JsonReader reader = JsonReader.of(Okio.buffer(Okio.source(JsonFiles.newInputStream(path, options))))) {
+        for (String token : tokens) {
+          if (!seek(reader, token)) {
+            return null;
+          }
+        }
+        return engine.<T>readAdapter(type, options).fromJson(reader);
+      }
+    }
+    return null;
+  }
+
+  // Positions the reader on the member or element named by token of the value at the reader's position, skipping everything before it
+  private static boolean seek(JsonReader reader, String token) throws IOException {
+    switch (reader.peek()) {
+      case BEGIN_OBJECT:
+        reader.beginObject();
+        while (reader.hasNext()) {
+          if (reader.nextName().equals(token)) {
+            return true;
+          }
+          reader.skipValue();
+        }
+        return false;
+      case BEGIN_ARRAY:
+        int index = JsonPointers.index(token);
+        if (index < 0) {
+          return false;
+        }
+        reader.beginArray();
+        for (int i = 0; i < index && reader.hasNext(); i++) {
+          reader.skipValue();
+        }
+        return reader.hasNext();
+      default:
+        return false;
+    }
+  }
+
+  // Read by position
+
+  /**
+   * Reads element {@code index} of the top-level array in {@code path}. The file's {@link JsonArrayIndex} sidecar, which is built first if it is missing or
+   * stale, lets the read start next to the element instead of parsing every element before it.
+   *
+   * @return {@code null} if the file does not exist or the array has no element {@code index}
+   */
+  @Nullable
+  public static <T> T readAt(@Nonnull Path path, long index, @Nonnull Class<T> type) throws IOException {
+    return readAt(path, index, (Type) type);
+  }
+
+  @Nullable
+  public static <T> T readAt(@Nonnull Path path, long index, @Nonnull Type type) throws IOException {
+    List<T> values = readRange(path, index, index + 1, type);
+    return values.isEmpty() ? null : values.get(0);
+  }
+
+  /**
+   * Reads the elements from {@code from}, inclusive, to {@code to}, exclusive, of the top-level array in {@code path}, or fewer if the array ends first. Like
+   * {@link #readAt(Path, long, Type)}, it seeks through the file's {@link JsonArrayIndex} sidecar.
+   */
+  @Nonnull
+  public static <T> List<T> readRange(@Nonnull Path path, long from, long to, @Nonnull Class<T> type) throws IOException {
+    return readRange(path, from, to, (Type) type);
+  }
+
+  @Nonnull
+  public static <T> List<T> readRange(@Nonnull Path path, long from, long to, @Nonnull Type type) throws IOException {
+    if (to < from) {
+      throw new IllegalArgumentException("to must not be less than from");
+    }
+    List<T> values = new ArrayList<>((int) Math.min(to - from, 1024));
+    try (JsonArrayIndex.Slice slice = JsonArrayIndex.seek(path, from)) {
+      if (slice == null) {
+        return values;
+      }
+      JsonAdapter<T> adapter = engine.adapter(type);
+      JsonReader jReader = JsonReader.of(Okio.buffer(Okio.source(slice.in())));
+      jReader.beginArray();
+      for (long skip = slice.skip(); skip > 0 && jReader.hasNext(); skip--) {
+        jReader.skipValue();
+      }
+      for (long i = from; i < to && jReader.hasNext(); i++) {
+        values.add(adapter.fromJson(jReader));
+      }
+    }
+    return values;
+  }
+
+  // Read lazily
+
+  @Nonnull
+  public static <T> Stream<T> readStream(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return readStream(path, (Type) type);
+  }
+
+  @Nonnull
+  public static <T> Stream<T> readStream(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+      return Stream.empty();
+    }
+    JsonAdapter<T> adapter = engine.adapter(type);
+    JsonReader jReader = JsonReader.of(Okio.buffer(Okio.source(JsonFiles.newInputStream(path, ReadOptions.DEFAULT))));
+    try {
+      jReader.beginArray();
+    } catch (IOException | RuntimeException e) {
+      jReader.close();
+      throw e;
+    }
+    return JsonStreams.lazy(action -> {
+      if (!jReader.hasNext()) {
+        jReader.endArray();
+        return false;
+      }
+      action.accept(adapter.fromJson(jReader));
+      return true;
+    }, jReader);
+  }
+
+  @Nonnull
+  public static <V> Stream<Map.Entry<String, V>> readEntries(@Nonnull Path path, @Nonnull Class<V> type) throws IOException {
+    return readEntries(path, (Type) type);
+  }
+
+  @Nonnull
+  public static <V> Stream<Map.Entry<String, V>> readEntries(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+      return Stream.empty();
+    }
+    JsonAdapter<V> adapter = engine.adapter(type);
+    JsonReader jReader = JsonReader.of(Okio.buffer(Okio.source(JsonFiles.newInputStream(path, ReadOptions.DEFAULT))));
+    try {
+      jReader.beginObject();
+    } catch (IOException | RuntimeException e) {
+      jReader.close();
+      throw e;
+    }
+    return JsonStreams.lazy(action -> {
+      if (!jReader.hasNext()) {
+        jReader.endObject();
+        return false;
+      }
+      String name = jReader.nextName();
+      action.accept(new SimpleImmutableEntry<>(name, adapter.fromJson(jReader)));
+      return true;
+    }, jReader);
+  }
+
+  // Read asynchronously
+
+  @Nonnull
+  public static <T> CompletableFuture<T> readAsync(@Nonnull Path path, @Nonnull Class<T> type) {
+    return JsonAsync.supply(() -> read(path, type));
+  }
+
+  @Nonnull
+  public static <T> CompletableFuture<T> readAsync(@Nonnull Path path, @Nonnull Type type) {
+    return JsonAsync.supply(() -> read(path, type));
+  }
+
   // Write
 
   public static <T> void write(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object) throws IOException {
-    Files.createDirectories(path.getParent());
-    Files.writeString(path, jsonAdapter().adapter(type).indent("  ").toJson(object), StandardCharsets.UTF_8);
+    write(path, (Type) type, object, WriteOptions.DEFAULT);
   }
 
   public static <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) throws IOException {
+    write(path, type, object, WriteOptions.DEFAULT);
+  }
+
+  public static <T> void write(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object, @Nonnull WriteOptions options) throws IOException {
+    write(path, (Type) type, object, options);
+  }
+
+  public static <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) throws IOException {
     Files.createDirectories(path.getParent());
-    Files.writeString(path, jsonAdapter().adapter(type).indent("  ").toJson(object), StandardCharsets.UTF_8);
+    JsonMetrics.Probe probe = JsonMetrics.begin(JsonBackend.MOSHI, JsonOperation.Kind.WRITE, path, type);
+    Exception failure = null;
+    try {
+      JsonFiles.write(path, options, out -> JsonMetrics.track(probe, out), output(type, object, options));
+    } catch (IOException | RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      JsonMetrics.end(probe, failure);
+    }
+  }
+
+  /**
+   * Serializes {@code object} as one whole document, for callers that stage the file themselves such as {@link com.aaronjyoder.util.json.JsonWriteQueue}.
+   */
+  @Nonnull
+  public static <T> JsonFiles.Output output(@Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) {
+    return out -> {
+      try (BufferedSink sink = Okio.buffer(Okio.sink(out))) {
+        engine.<T>writeAdapter(type, options).toJson(sink, object);
+      }
+    };
   }
 
   @Deprecated
   public static <T> void write(String file, Class<T> type, T object) {
     try {
-      Writer writer = new FileWriter(file, StandardCharsets.UTF_8);
-      writer.write(jsonAdapter().adapter(type).indent("  ").toJson(object));
-      writer.close();
+      try (BufferedSink sink = Okio.buffer(Okio.sink(new File(file)))) {
+        engine.<T>writeAdapter(type, WriteOptions.DEFAULT).toJson(sink, object);
+      }
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -135,23 +387,340 @@ public final class MoshiUtil {
   @Deprecated
   public static <T> void write(String file, Type type, T object) {
     try {
-      Writer writer = new FileWriter(file, StandardCharsets.UTF_8);
-      writer.write(jsonAdapter().adapter(type).indent("  ").toJson(object));
-      writer.close();
+      try (BufferedSink sink = Okio.buffer(Okio.sink(new File(file)))) {
+        engine.<T>writeAdapter(type, WriteOptions.DEFAULT).toJson(sink, object);
+      }
     } catch (IOException e) {
       e.printStackTrace();
     }
   }
 
+  // Write asynchronously
+
+  @Nonnull
+  public static <T> CompletableFuture<Void> writeAsync(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object) {
+    return JsonAsync.supply(() -> {
+      write(path, type, object);
+      return null;
+    });
+  }
+
+  @Nonnull
+  public static <T> CompletableFuture<Void> writeAsync(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) {
+    return JsonAsync.supply(() -> {
+      write(path, type, object);
+      return null;
+    });
+  }
+
+  // Bulk
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> readAll(@Nonnull Path directory, @Nonnull String glob, @Nonnull Class<T> type) throws IOException {
+    return readAll(directory, glob, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> readAll(@Nonnull Path directory, @Nonnull String glob, @Nonnull Type type) throws IOException {
+    return readAll(directory, glob, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> readAll(@Nonnull Path directory, @Nonnull String glob, @Nonnull Type type, int parallelism) throws IOException {
+    return JsonBulk.readAll(JsonBackend.MOSHI, directory, glob, type, parallelism);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> writeAll(@Nonnull Map<Path, ? extends T> objects, @Nonnull Class<T> type) throws IOException {
+    return writeAll(objects, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> writeAll(@Nonnull Map<Path, ? extends T> objects, @Nonnull Type type) throws IOException {
+    return writeAll(objects, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> writeAll(@Nonnull Map<Path, ? extends T> objects, @Nonnull Type type, int parallelism) throws IOException {
+    return JsonBulk.writeAll(JsonBackend.MOSHI, objects, type, parallelism);
+  }
+
+  // JSON Lines
+
+  /**
+   * Appends {@code object} as one compact line to the JSON Lines file at {@code path}, through the file's shared {@link JsonLines.Appender}.
+   */
+  public static <T> void append(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object) throws IOException {
+    append(path, (Type) type, object);
+  }
+
+  public static <T> void append(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) throws IOException {
+    JsonLines.append(path, lineEncoder(type, object));
+  }
+
+  @Nonnull
+  public static <T> Stream<T> readLines(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return readLines(path, (Type) type);
+  }
+
+  @Nonnull
+  public static <T> Stream<T> readLines(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return JsonLines.read(path, ReadOptions.DEFAULT, lineDecoder(type));
+  }
+
+  /**
+   * Like {@link #readLines(Path, Type)}, but splits the file on line boundaries and parses the parts in parallel.
+   */
+  @Nonnull
+  public static <T> Stream<T> readLinesParallel(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return readLinesParallel(path, (Type) type);
+  }
+
+  @Nonnull
+  public static <T> Stream<T> readLinesParallel(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return JsonLines.readParallel(path, ReadOptions.DEFAULT, lineDecoder(type));
+  }
+
+  /**
+   * Encodes {@code object} as one compact JSON Lines value, for {@link JsonLines} and {@link com.aaronjyoder.util.json.JsonStore}.
+   */
+  @Nonnull
+  public static <T> JsonLines.Encoder lineEncoder(@Nonnull Class<T> type, @Nonnull T object) {
+    return lineEncoder((Type) type, object);
+  }
+
+  @Nonnull
+  public static <T> JsonLines.Encoder lineEncoder(@Nonnull Type type, @Nonnull T object) {
+    JsonAdapter<T> adapter = engine.adapter(type);
+    return out -> {
+      BufferedSink sink = Okio.buffer(Okio.sink(out));
+      adapter.toJson(sink, object);
+      sink.flush();
+    };
+  }
+
+  /**
+   * Decodes consecutive JSON Lines values, for {@link JsonLines} and {@link com.aaronjyoder.util.json.JsonStore}.
+   */
+  @Nonnull
+  public static <T> JsonLines.Decoder<T> lineDecoder(@Nonnull Class<T> type) {
+    return lineDecoder((Type) type);
+  }
+
+  @Nonnull
+  public static <T> JsonLines.Decoder<T> lineDecoder(@Nonnull Type type) {
+    JsonAdapter<T> adapter = engine.adapter(type);
+    return in -> {
+      JsonReader reader = JsonReader.of(Okio.buffer(Okio.source(in)));
+      // Only a lenient reader moves on to another top-level value
+      reader.setLenient(true);
+      return action -> {
+        try {
+          if (reader.peek() == JsonReader.Token.END_DOCUMENT) {
+            return false;
+          }
+        } catch (EOFException e) {
+          // Nothing but whitespace
+          return false;
+        }
+        action.accept(adapter.fromJson(reader));
+        return true;
+      };
+    };
+  }
+
+  // Patch
+
+  /**
+   * Applies an <a href="https://datatracker.ietf.org/doc/html/rfc7386">RFC 7386</a> JSON Merge Patch to the file at {@code path}. {@code mergePatch} is a JSON
+   * value in the form {@link JsonReader#readJsonValue()} returns it: a {@code Map<String, ?>} for an object. The file is streamed into a temporary file, every
+   * subtree the patch does not touch is copied byte for byte, and the result atomically replaces the original.
+   */
+  public static void patch(@Nonnull Path path, @Nullable Object mergePatch) throws IOException {
+    patch(path, mergePatch, WriteOptions.DEFAULT);
+  }
+
+  public static void patch(@Nonnull Path path, @Nullable Object mergePatch, @Nonnull WriteOptions options) throws IOException {
+    JsonFiles.rewrite(path, ReadOptions.DEFAULT, options, (in, out) -> {
+      JsonReader reader = JsonReader.of(Okio.buffer(Okio.source(in)));
+      JsonWriter writer = newJsonWriter(Okio.buffer(Okio.sink(out)), options);
+      merge(reader, writer, mergePatch);
+      writer.flush();
+      return true;
+    });
+  }
+
+  /**
+   * Replaces the value at {@code jsonPointer} with {@code value}, or adds it if only the last token of the pointer is missing (a new member of an object, or
+   * {@code -} or the length of an array to append). The file is streamed into a temporary file with every other subtree copied byte for byte, and atomically
+   * replaces the original.
+   *
+   * @return {@code false}, leaving the file untouched, if the parent of the target does not exist
+   */
+  public static <T> boolean update(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Class<T> type, @Nullable T value) throws IOException {
+    return update(path, jsonPointer, (Type) type, value, WriteOptions.DEFAULT);
+  }
+
+  public static <T> boolean update(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Type type, @Nullable T value) throws IOException {
+    return update(path, jsonPointer, type, value, WriteOptions.DEFAULT);
+  }
+
+  public static <T> boolean update(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Class<T> type, @Nullable T value, @Nonnull WriteOptions options)
+      throws IOException {
+    return update(path, jsonPointer, (Type) type, value, options);
+  }
+
+  public static <T> boolean update(@Nonnull Path path, @Nonnull String jsonPointer, @Nonnull Type type, @Nullable T value, @Nonnull WriteOptions options)
+      throws IOException {
+    List<String> tokens = JsonPointers.parse(jsonPointer);
+    JsonAdapter<T> adapter = engine.writeAdapter(type, options);
+    return JsonFiles.rewrite(path, ReadOptions.DEFAULT, options, (in, out) -> {
+      JsonReader reader = JsonReader.of(Okio.buffer(Okio.source(in)));
+      JsonWriter writer = newJsonWriter(Okio.buffer(Okio.sink(out)), options);
+      boolean updated = update(reader, writer, tokens, 0, () -> {
+        writer.setSerializeNulls(Boolean.TRUE.equals(options.serializeNulls()));
+        adapter.toJson(writer, value);
+        writer.setSerializeNulls(true);
+      });
+      writer.flush();
+      return updated;
+    });
+  }
+
+  private static JsonWriter newJsonWriter(BufferedSink sink, WriteOptions options) {
+    JsonWriter writer = JsonWriter.of(sink);
+    writer.setIndent(options.indent() ? "  " : "");
+    // Copied members keep their nulls; only merge patch nulls remove anything
+    writer.setSerializeNulls(true);
+    return writer;
+  }
+
+  @FunctionalInterface
+  private interface ValueWriter {
+
+    void write() throws IOException;
+
+  }
+
+  private static void merge(JsonReader reader, JsonWriter writer, Object patch) throws IOException {
+    if (!(patch instanceof Map<?, ?> members)) {
+      reader.skipValue();
+      writer.jsonValue(patch);
+      return;
+    }
+    if (reader.peek() != JsonReader.Token.BEGIN_OBJECT) {
+      reader.skipValue();
+      writeMerged(writer, patch);
+      return;
+    }
+    Set<String> merged = new HashSet<>();
+    reader.beginObject();
+    writer.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (!members.containsKey(name)) {
+        writer.name(name);
+        writer.value(reader.nextSource());
+      } else if (members.get(name) == null) {
+        merged.add(name);
+        reader.skipValue();
+      } else {
+        merged.add(name);
+        writer.name(name);
+        merge(reader, writer, members.get(name));
+      }
+    }
+    for (Map.Entry<?, ?> member : members.entrySet()) {
+      String name = String.valueOf(member.getKey());
+      if (!merged.contains(name) && member.getValue() != null) {
+        writer.name(name);
+        writeMerged(writer, member.getValue());
+      }
+    }
+    reader.endObject();
+    writer.endObject();
+  }
+
+  // Merges patch into a value that is not an object, which leaves patch minus the members it removes
+  private static void writeMerged(JsonWriter writer, Object patch) throws IOException {
+    if (!(patch instanceof Map<?, ?> members)) {
+      writer.jsonValue(patch);
+      return;
+    }
+    writer.beginObject();
+    for (Map.Entry<?, ?> member : members.entrySet()) {
+      if (member.getValue() != null) {
+        writer.name(String.valueOf(member.getKey()));
+        writeMerged(writer, member.getValue());
+      }
+    }
+    writer.endObject();
+  }
+
+  private static boolean update(JsonReader reader, JsonWriter writer, List<String> tokens, int depth, ValueWriter value) throws IOException {
+    if (depth == tokens.size()) {
+      reader.skipValue();
+      value.write();
+      return true;
+    }
+    String token = tokens.get(depth);
+    boolean last = depth == tokens.size() - 1;
+    boolean found = false;
+    switch (reader.peek()) {
+      case BEGIN_OBJECT:
+        reader.beginObject();
+        writer.beginObject();
+        while (reader.hasNext()) {
+          String name = reader.nextName();
+          writer.name(name);
+          if (!found && name.equals(token)) {
+            found = update(reader, writer, tokens, depth + 1, value);
+          } else {
+            writer.value(reader.nextSource());
+          }
+        }
+        if (!found && last) {
+          writer.name(token);
+          value.write();
+          found = true;
+        }
+        reader.endObject();
+        writer.endObject();
+        return found;
+      case BEGIN_ARRAY:
+        int index = JsonPointers.index(token);
+        reader.beginArray();
+        writer.beginArray();
+        int size = 0;
+        for (; reader.hasNext(); size++) {
+          if (size == index) {
+            found = update(reader, writer, tokens, depth + 1, value);
+          } else {
+            writer.value(reader.nextSource());
+          }
+        }
+        if (!found && last && (size == index || token.equals("-"))) {
+          value.write();
+          found = true;
+        }
+        reader.endArray();
+        writer.endArray();
+        return found;
+      default:
+        writer.value(reader.nextSource());
+        return false;
+    }
+  }
+
   // Write with basic directory creation
 
   @Deprecated
   public static <T> void write(String directory, String fileName, Class<T> type, T object) {
     try {
       Files.createDirectories(Paths.get(directory));
-      Writer writer = new FileWriter(directory + fileName, StandardCharsets.UTF_8);
-      writer.write(jsonAdapter().adapter(type).indent("  ").toJson(object));
-      writer.close();
+      try (BufferedSink sink = Okio.buffer(Okio.sink(new File(directory + fileName)))) {
+        engine.<T>writeAdapter(type, WriteOptions.DEFAULT).toJson(sink, object);
+      }
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -161,12 +730,90 @@ public final class MoshiUtil {
   public static <T> void write(String directory, String fileName, Type type, T object) {
     try {
       Files.createDirectories(Paths.get(directory));
-      Writer writer = new FileWriter(directory + fileName, StandardCharsets.UTF_8);
-      writer.write(jsonAdapter().adapter(type).indent("  ").toJson(object));
-      writer.close();
+      try (BufferedSink sink = Okio.buffer(Okio.sink(new File(directory + fileName)))) {
+        engine.<T>writeAdapter(type, WriteOptions.DEFAULT).toJson(sink, object);
+      }
     } catch (IOException e) {
       e.printStackTrace();
     }
   }
 
+  private static final class Engine {
+
+    private final ImmutableList<RuntimeTypeAdapterFactory<?>> factories;
+    private final Supplier<Moshi> moshi = Suppliers.memoize(() -> build(false));
+    private final Supplier<Moshi> packedMoshi = Suppliers.memoize(() -> build(true));
+    private final Map<Type, JsonAdapter<?>> adapters = new ConcurrentHashMap<>();
+    private final Map<Type, JsonAdapter<?>> packedAdapters = new ConcurrentHashMap<>();
+    private final Map<Variant, JsonAdapter<?>> variants = new ConcurrentHashMap<>();
+
+    private Engine(ImmutableList<RuntimeTypeAdapterFactory<?>> factories) {
+      this.factories = factories;
+    }
+
+    private Engine with(RuntimeTypeAdapterFactory<?>... factories) {
+      return new Engine(ImmutableList.<RuntimeTypeAdapterFactory<?>>builder().addAll(this.factories).add(factories).build());
+    }
+
+    private Moshi build(boolean packed) {
+      Moshi.Builder builder = new Moshi.Builder();
+      // Registered ahead of the records factory so that record subtypes of a registered base type still get their label
+      for (RuntimeTypeAdapterFactory<?> factory : factories) {
+        builder.add(factory);
+      }
+      return builder
+          .add(new RecordsJsonAdapterFactory())
+          .add(new InstantAdapter())
+          .add(new UUIDAdapter())
+          .add(new PointAdapter())
+          .add(new ColorAdapter())
+          .add(new PrimitiveAdapterFactory())
+          .add(new PackedAdapterFactory(packed))
+          .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> JsonAdapter<T> adapter(Type type) {
+      return (JsonAdapter<T>) JsonMetrics.lookup(JsonBackend.MOSHI, type, adapters, type, t -> moshi.get().adapter(t));
+    }
+
+    private <T> JsonAdapter<T> readAdapter(Type type, ReadOptions options) {
+      return adapter(new Variant(type, false, false, Boolean.TRUE.equals(options.lenient()), false));
+    }
+
+    private <T> JsonAdapter<T> writeAdapter(Type type, WriteOptions options) {
+      return adapter(new Variant(type, options.indent(), Boolean.TRUE.equals(options.serializeNulls()), false, options.packed()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> JsonAdapter<T> adapter(Variant variant) {
+      if (!variant.indent() && !variant.serializeNulls() && !variant.lenient() && !variant.packed()) {
+        return adapter(variant.type());
+      }
+      return (JsonAdapter<T>) variants.computeIfAbsent(variant, v -> {
+        JsonAdapter<?> adapter;
+        if (v.packed()) {
+          adapter = JsonMetrics.lookup(JsonBackend.MOSHI, v.type(), packedAdapters, v.type(), t -> packedMoshi.get().adapter(t));
+        } else {
+          adapter = adapter(v.type());
+        }
+        if (v.indent()) {
+          adapter = adapter.indent("  ");
+        }
+        if (v.serializeNulls()) {
+          adapter = adapter.serializeNulls();
+        }
+        if (v.lenient()) {
+          adapter = adapter.lenient();
+        }
+        return adapter;
+      });
+    }
+
+  }
+
+  private record Variant(Type type, boolean indent, boolean serializeNulls, boolean lenient, boolean packed) {
+
+  }
+
 }
@@ -0,0 +1,274 @@
+package com.aaronjyoder.util.json.smile;
+
+import com.aaronjyoder.util.json.JsonAsync;
+import com.aaronjyoder.util.json.JsonBackend;
+import com.aaronjyoder.util.json.JsonBulk;
+import com.aaronjyoder.util.json.JsonFiles;
+import com.aaronjyoder.util.json.ReadOptions;
+import com.aaronjyoder.util.json.WriteOptions;
+import com.aaronjyoder.util.json.adapters.JacksonAdapterModule;
+import com.aaronjyoder.util.json.adapters.PackedAdapterFactory;
+import com.aaronjyoder.util.json.adapters.PrimitiveAdapterFactory;
+import com.aaronjyoder.util.json.adapters.RuntimeTypeAdapterFactory;
+import com.aaronjyoder.util.json.metrics.JsonMetrics;
+import com.aaronjyoder.util.json.metrics.JsonOperation;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Reads and writes Jackson's binary Smile format with the same API as the JSON utils. Property names and short string values that repeat are written once and
+ * referenced afterwards, so snapshot files are smaller and parse faster than text. {@link java.time.Instant}, {@link java.util.UUID}, {@link java.awt.Point}
+ * and {@link java.awt.Color} are encoded the way the adapters in {@code com.aaronjyoder.util.json.adapters} encode them in JSON.
+ * <p>
+ * Indentation and lenient parsing do not apply to a binary format and are ignored; the remaining {@link ReadOptions} and {@link WriteOptions} are honoured.
+ */
+public final class SmileUtil {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static volatile Engine engine = new Engine(ImmutableList.of());
+
+  private SmileUtil() {
+  }
+
+  public static synchronized void register(RuntimeTypeAdapterFactory<?>... factories) {
+    engine = engine.with(factories);
+  }
+
+  // Read
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull Class<T> type) throws IOException {
+    return read(path, (Type) type, ReadOptions.DEFAULT);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull Type type) throws IOException {
+    return read(path, type, ReadOptions.DEFAULT);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull ReadOptions options) throws IOException {
+    return read(path, (Type) type, options);
+  }
+
+  @Nullable
+  public static <T> T read(@Nonnull Path path, @Nonnull Type type, @Nonnull ReadOptions options) throws IOException {
+    if (Files.isRegularFile(path) && Files.isReadable(path)) {
+      JsonMetrics.Probe probe = JsonMetrics.begin(JsonBackend.SMILE, JsonOperation.Kind.READ, path, type);
+      Exception failure = null;
+      try (InputStream in = JsonMetrics.track(probe, JsonFiles.newInputStream(path, options))) {
+        return engine.reader(type).readValue(in);
+      } catch (IOException | RuntimeException e) {
+        failure = e;
+        throw e;
+      } finally {
+        JsonMetrics.end(probe, failure);
+      }
+    }
+    return null;
+  }
+
+  // Read asynchronously
+
+  @Nonnull
+  public static <T> CompletableFuture<T> readAsync(@Nonnull Path path, @Nonnull Class<T> type) {
+    return JsonAsync.supply(() -> read(path, type));
+  }
+
+  @Nonnull
+  public static <T> CompletableFuture<T> readAsync(@Nonnull Path path, @Nonnull Type type) {
+    return JsonAsync.supply(() -> read(path, type));
+  }
+
+  // Write
+
+  public static <T> void write(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object) throws IOException {
+    write(path, (Type) type, object, WriteOptions.DEFAULT);
+  }
+
+  public static <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) throws IOException {
+    write(path, type, object, WriteOptions.DEFAULT);
+  }
+
+  public static <T> void write(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object, @Nonnull WriteOptions options) throws IOException {
+    write(path, (Type) type, object, options);
+  }
+
+  public static <T> void write(@Nonnull Path path, @Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) throws IOException {
+    Files.createDirectories(path.getParent());
+    JsonMetrics.Probe probe = JsonMetrics.begin(JsonBackend.SMILE, JsonOperation.Kind.WRITE, path, type);
+    Exception failure = null;
+    try {
+      JsonFiles.write(path, options, out -> JsonMetrics.track(probe, out), output(type, object, options));
+    } catch (IOException | RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      JsonMetrics.end(probe, failure);
+    }
+  }
+
+  /**
+   * Serializes {@code object} as one whole document, for callers that stage the file themselves such as {@link com.aaronjyoder.util.json.JsonWriteQueue}.
+   */
+  @Nonnull
+  public static <T> JsonFiles.Output output(@Nonnull Type type, @Nonnull T object, @Nonnull WriteOptions options) {
+    return out -> engine.writer(type, options).writeValue(out, object);
+  }
+
+  // Write asynchronously
+
+  @Nonnull
+  public static <T> CompletableFuture<Void> writeAsync(@Nonnull Path path, @Nonnull Class<T> type, @Nonnull T object) {
+    return JsonAsync.supply(() -> {
+      write(path, type, object);
+      return null;
+    });
+  }
+
+  @Nonnull
+  public static <T> CompletableFuture<Void> writeAsync(@Nonnull Path path, @Nonnull Type type, @Nonnull T object) {
+    return JsonAsync.supply(() -> {
+      write(path, type, object);
+      return null;
+    });
+  }
+
+  // Bulk
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> readAll(@Nonnull Path directory, @Nonnull String glob, @Nonnull Class<T> type) throws IOException {
+    return readAll(directory, glob, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> readAll(@Nonnull Path directory, @Nonnull String glob, @Nonnull Type type) throws IOException {
+    return readAll(directory, glob, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> readAll(@Nonnull Path directory, @Nonnull String glob, @Nonnull Type type, int parallelism) throws IOException {
+    return JsonBulk.readAll(JsonBackend.SMILE, directory, glob, type, parallelism);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> writeAll(@Nonnull Map<Path, ? extends T> objects, @Nonnull Class<T> type) throws IOException {
+    return writeAll(objects, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> writeAll(@Nonnull Map<Path, ? extends T> objects, @Nonnull Type type) throws IOException {
+    return writeAll(objects, type, JsonBulk.DEFAULT_PARALLELISM);
+  }
+
+  @Nonnull
+  public static <T> JsonBulk.Result<T> writeAll(@Nonnull Map<Path, ? extends T> objects, @Nonnull Type type, int parallelism) throws IOException {
+    return JsonBulk.writeAll(JsonBackend.SMILE, objects, type, parallelism);
+  }
+
+  // Convert
+
+  /**
+   * Re-encodes the JSON document at {@code in} as Smile at {@code out}, token by token, without binding it to any type or holding it in memory.
+   */
+  public static void convert(@Nonnull Path in, @Nonnull Path out) throws IOException {
+    convert(in, out, ReadOptions.DEFAULT, WriteOptions.DEFAULT);
+  }
+
+  public static void convert(@Nonnull Path in, @Nonnull Path out, @Nonnull ReadOptions readOptions, @Nonnull WriteOptions writeOptions) throws IOException {
+    Files.createDirectories(out.toAbsolutePath().getParent());
+    // Staged and renamed like any other write, so a parse error leaves out as it was, and in and out may be the same file
+    JsonFiles.write(out, writeOptions, stream -> {
+      try (JsonParser parser = JSON_FACTORY.createParser(JsonFiles.newInputStream(in, readOptions));
+          JsonGenerator generator = engine.mapper().getFactory().createGenerator(stream)) {
+        while (parser.nextToken() != null) {
+          generator.copyCurrentEvent(parser);
+        }
+      }
+    });
+  }
+
+  private static final class Engine {
+
+    private final ImmutableList<RuntimeTypeAdapterFactory<?>> factories;
+    private final Supplier<SmileMapper> mapper = Suppliers.memoize(this::build);
+    private final Supplier<ObjectWriter> writer = Suppliers.memoize(() -> mapper().writer());
+    private final Supplier<ObjectWriter> nonNullWriter = Suppliers.memoize(() -> mapper().copy().setSerializationInclusion(Include.NON_NULL).writer());
+    private final Map<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<TypedWriter, ObjectWriter> typedWriters = new ConcurrentHashMap<>();
+
+    private Engine(ImmutableList<RuntimeTypeAdapterFactory<?>> factories) {
+      this.factories = factories;
+    }
+
+    private Engine with(RuntimeTypeAdapterFactory<?>... factories) {
+      return new Engine(ImmutableList.<RuntimeTypeAdapterFactory<?>>builder().addAll(this.factories).add(factories).build());
+    }
+
+    private SmileMapper build() {
+      SmileFactory factory = SmileFactory.builder()
+          .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+          .build();
+      SmileMapper.Builder builder = SmileMapper.builder(factory)
+          .addModule(new JavaTimeModule())
+          .addModule(new JacksonAdapterModule())
+          .addModule(new PrimitiveAdapterFactory().jacksonModule())
+          .addModule(new PackedAdapterFactory().jacksonModule());
+      for (RuntimeTypeAdapterFactory<?> runtimeFactory : factories) {
+        builder.addModule(runtimeFactory.jacksonModule());
+      }
+      return builder.build();
+    }
+
+    private SmileMapper mapper() {
+      return mapper.get();
+    }
+
+    private ObjectReader reader(Type type) {
+      return JsonMetrics.lookup(JsonBackend.SMILE, type, readers, type, t -> mapper().readerFor(mapper().constructType(t)));
+    }
+
+    // Class types resolve the serializer from the runtime class and generic types are bound, like JacksonUtil
+    private ObjectWriter writer(Type type, WriteOptions options) {
+      if (type instanceof Class<?>) {
+        return writer(options);
+      }
+      return JsonMetrics.lookup(JsonBackend.SMILE, type, typedWriters, new TypedWriter(type, options),
+          key -> writer(key.options()).forType(mapper().constructType(key.type())));
+    }
+
+    private ObjectWriter writer(WriteOptions options) {
+      ObjectWriter base = Boolean.FALSE.equals(options.serializeNulls()) ? nonNullWriter.get() : writer.get();
+      return options.packed() ? base.withAttribute(PackedAdapterFactory.PACKED, Boolean.TRUE) : base;
+    }
+
+  }
+
+  private record TypedWriter(Type type, WriteOptions options) {
+
+  }
+
+}
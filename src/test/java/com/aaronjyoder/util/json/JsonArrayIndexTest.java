@@ -0,0 +1,98 @@
+package com.aaronjyoder.util.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonArrayIndexTest {
+
+  // Strings full of brackets, braces, commas and escapes, nested arrays and objects, and an empty string and array
+  private static final String TRICKY = """
+      [
+        "a \\"quoted\\" ] string",
+        "brackets [ { ] } , and a backslash \\\\",
+        "\\\\",
+        [1, [2, [3, "]"]], []],
+        {"k": "]", "n": ["[", {"x": "\\"}"}]},
+        "",
+        [],
+        42
+      ]
+      """;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void findsEveryElementOfATrickyArray() throws IOException {
+    Path path = Files.writeString(directory.resolve("tricky.json"), TRICKY);
+    JsonArray expected = JsonParser.parseString(TRICKY).getAsJsonArray();
+
+    assertTrue(JsonArrayIndex.build(path, 2));
+    assertEquals(expected.size(), JsonArrayIndex.count(path));
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i), elementAt(path, i));
+    }
+    assertNull(JsonArrayIndex.seek(path, expected.size()));
+  }
+
+  @Test
+  void scannerKeepsItsStateAcrossSplitInput() {
+    byte[] bytes = TRICKY.getBytes(StandardCharsets.UTF_8);
+    JsonArrayIndex.Scanner scanner = new JsonArrayIndex.Scanner(1);
+    for (int i = 0; i < bytes.length; i++) {
+      scanner.update(bytes, i, 1);
+    }
+    assertTrue(scanner.isComplete());
+  }
+
+  @Test
+  void emptyArrayHasNoElements() throws IOException {
+    for (String json : new String[]{"[]", " [ \n ] \n"}) {
+      Path path = Files.writeString(directory.resolve("empty.json"), json);
+      assertTrue(JsonArrayIndex.build(path, 1));
+      assertEquals(0, JsonArrayIndex.count(path));
+      assertNull(JsonArrayIndex.seek(path, 0));
+    }
+  }
+
+  @Test
+  void rejectsAnythingButOneCompleteArray() throws IOException {
+    for (String json : new String[]{"{\"a\": [1]}", "[1] 2", "[1] []", "[1, \"2]", "[[1, 2]", "\"[1]\""}) {
+      Path path = Files.writeString(directory.resolve("invalid.json"), json);
+      assertFalse(JsonArrayIndex.build(path, 1), json);
+      assertFalse(Files.exists(JsonArrayIndex.sidecar(path)), json);
+      assertEquals(-1, JsonArrayIndex.count(path), json);
+    }
+  }
+
+  @Test
+  void staleIndexIsRebuilt() throws IOException {
+    Path path = Files.writeString(directory.resolve("stale.json"), "[1, 2, 3]");
+    assertTrue(JsonArrayIndex.build(path, 1));
+    Files.writeString(path, "[\"one\", [\"two\"], {\"three\": 3}, 4]");
+    assertEquals(4, JsonArrayIndex.count(path));
+    assertEquals(JsonParser.parseString("{\"three\": 3}"), elementAt(path, 2));
+  }
+
+  private static Object elementAt(Path path, long index) throws IOException {
+    try (JsonArrayIndex.Slice slice = JsonArrayIndex.seek(path, index)) {
+      assertNotNull(slice);
+      JsonArray rest = JsonParser.parseReader(new InputStreamReader(slice.in(), StandardCharsets.UTF_8)).getAsJsonArray();
+      return rest.get((int) slice.skip());
+    }
+  }
+
+}
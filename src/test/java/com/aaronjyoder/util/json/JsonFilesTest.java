@@ -0,0 +1,52 @@
+package com.aaronjyoder.util.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.aaronjyoder.util.json.jackson.JacksonUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonFilesTest {
+
+  @TempDir
+  Path directory;
+
+  // Jackson refuses to serialize a bean without properties
+  static class Empty {
+
+  }
+
+  @Test
+  void failedWriteLeavesTheTargetAsItWas() throws IOException {
+    Path path = Files.writeString(directory.resolve("value.json"), "[1, 2, 3]");
+    WriteOptions options = WriteOptions.DEFAULT.withFsync(WriteOptions.Fsync.ALL).withArrayIndexInterval(1);
+
+    assertThrows(IOException.class, () -> JacksonUtil.write(path, List.class, List.of(1, new Empty()), options));
+    assertEquals("[1, 2, 3]", Files.readString(path));
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(List.of(path), files.toList());
+    }
+  }
+
+  @Test
+  void writeReplacesTheTargetAndSavesItsIndex() throws IOException {
+    Path path = Files.writeString(directory.resolve("value.json"), "[1, 2, 3]");
+    JacksonUtil.write(path, List.class, List.of(4, 5), WriteOptions.DEFAULT.withArrayIndexInterval(1));
+
+    assertEquals(List.of(4, 5), JacksonUtil.read(path, List.class));
+    assertTrue(Files.exists(JsonArrayIndex.sidecar(path)));
+    assertEquals(2, JsonArrayIndex.count(path));
+    try (Stream<Path> files = Files.list(directory)) {
+      assertFalse(files.anyMatch(file -> file.toString().endsWith(".tmp")));
+    }
+  }
+
+}
@@ -0,0 +1,90 @@
+package com.aaronjyoder.util.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.aaronjyoder.util.json.gson.GsonUtil;
+import com.aaronjyoder.util.json.jackson.JacksonUtil;
+import com.aaronjyoder.util.json.moshi.MoshiUtil;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonPointerUpdateTest {
+
+  private static final String DOCUMENT = "{\"name\": \"a\", \"items\": [\"x\", \"y\", {\"z\": \"]\"}], \"empty\": []}";
+
+  @FunctionalInterface
+  private interface Updater {
+
+    boolean update(Path path, String jsonPointer, String value) throws IOException;
+
+  }
+
+  private static final Map<String, Updater> UPDATERS = new LinkedHashMap<>();
+
+  static {
+    UPDATERS.put("gson", (path, pointer, value) -> GsonUtil.update(path, pointer, String.class, value));
+    UPDATERS.put("moshi", (path, pointer, value) -> MoshiUtil.update(path, pointer, String.class, value));
+    UPDATERS.put("jackson", (path, pointer, value) -> JacksonUtil.update(path, pointer, String.class, value));
+  }
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void dashAppendsToTheArray() throws IOException {
+    assertUpdated("/items/-", "{\"name\": \"a\", \"items\": [\"x\", \"y\", {\"z\": \"]\"}, \"new\"], \"empty\": []}");
+    assertUpdated("/empty/-", "{\"name\": \"a\", \"items\": [\"x\", \"y\", {\"z\": \"]\"}], \"empty\": [\"new\"]}");
+  }
+
+  @Test
+  void lengthAppendsToTheArray() throws IOException {
+    assertUpdated("/items/3", "{\"name\": \"a\", \"items\": [\"x\", \"y\", {\"z\": \"]\"}, \"new\"], \"empty\": []}");
+    assertUpdated("/empty/0", "{\"name\": \"a\", \"items\": [\"x\", \"y\", {\"z\": \"]\"}], \"empty\": [\"new\"]}");
+  }
+
+  @Test
+  void replacesExistingValues() throws IOException {
+    assertUpdated("/name", "{\"name\": \"new\", \"items\": [\"x\", \"y\", {\"z\": \"]\"}], \"empty\": []}");
+    assertUpdated("/items/2", "{\"name\": \"a\", \"items\": [\"x\", \"y\", \"new\"], \"empty\": []}");
+    assertUpdated("/items/2/z", "{\"name\": \"a\", \"items\": [\"x\", \"y\", {\"z\": \"new\"}], \"empty\": []}");
+    assertUpdated("", "\"new\"");
+  }
+
+  @Test
+  void addsAMissingLastMember() throws IOException {
+    assertUpdated("/added", "{\"name\": \"a\", \"items\": [\"x\", \"y\", {\"z\": \"]\"}], \"empty\": [], \"added\": \"new\"}");
+    assertUpdated("/items/2/added", "{\"name\": \"a\", \"items\": [\"x\", \"y\", {\"z\": \"]\", \"added\": \"new\"}], \"empty\": []}");
+  }
+
+  @Test
+  void leavesTheFileUntouchedWhenTheParentIsMissing() throws IOException {
+    for (String pointer : new String[]{"/missing/child", "/items/4", "/items/-/z", "/items/01", "/name/child", "/empty/0/child"}) {
+      for (Map.Entry<String, Updater> updater : UPDATERS.entrySet()) {
+        Path path = Files.writeString(directory.resolve(updater.getKey() + ".json"), DOCUMENT);
+        assertFalse(updater.getValue().update(path, pointer, "new"), updater.getKey() + " " + pointer);
+        assertEquals(DOCUMENT, Files.readString(path), updater.getKey() + " " + pointer);
+      }
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(UPDATERS.size(), files.count());
+    }
+  }
+
+  private void assertUpdated(String pointer, String expected) throws IOException {
+    for (Map.Entry<String, Updater> updater : UPDATERS.entrySet()) {
+      Path path = Files.writeString(directory.resolve(updater.getKey() + ".json"), DOCUMENT);
+      assertTrue(updater.getValue().update(path, pointer, "new"), updater.getKey() + " " + pointer);
+      assertEquals(JsonParser.parseString(expected), JsonParser.parseString(Files.readString(path)), updater.getKey() + " " + pointer);
+    }
+  }
+
+}
@@ -0,0 +1,122 @@
+package com.aaronjyoder.util.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonStoreTest {
+
+  @TempDir
+  Path directory;
+
+  // A single shard keeps the file names predictable
+  private JsonStore<String, String> open() throws IOException {
+    return JsonStore.open(JsonBackend.GSON, directory, String.class, String.class, 1);
+  }
+
+  @Test
+  void reopenKeepsRecordsAndShardCount() throws IOException {
+    try (JsonStore<String, String> store = open()) {
+      store.put("a", "1");
+      store.put("b", "2");
+      store.put("a", "3");
+      assertTrue(store.remove("b"));
+      assertFalse(store.remove("b"));
+    }
+    try (JsonStore<String, String> store = JsonStore.open(JsonBackend.GSON, directory, String.class, String.class, 8)) {
+      assertEquals("3", store.get("a"));
+      assertNull(store.get("b"));
+      assertEquals(1, store.size());
+      assertFalse(Files.exists(directory.resolve("shard-1.0.jsonl")));
+    }
+  }
+
+  @Test
+  void replaysLinesAppendedAfterTheSavedIndex() throws IOException {
+    Path index = directory.resolve("shard-0.0.index.json");
+    Path saved = directory.resolve("saved-index.json");
+    try (JsonStore<String, String> store = open()) {
+      store.put("a", "1");
+      store.put("b", "2");
+      store.flush();
+      Files.copy(index, saved);
+      store.put("c", "3");
+      store.put("a", "4");
+      store.remove("b");
+    }
+    // As if the process had died before the index was saved again
+    Files.move(saved, index, StandardCopyOption.REPLACE_EXISTING);
+    try (JsonStore<String, String> store = open()) {
+      assertEquals(Map.of("a", "4", "c", "3"), store.scan().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+    }
+  }
+
+  @Test
+  void rebuildsAMissingIndexAndDropsATornLastLine() throws IOException {
+    Path shard = directory.resolve("shard-0.0.jsonl");
+    try (JsonStore<String, String> store = open()) {
+      store.put("a", "1");
+      store.put("b", "2");
+    }
+    long size = Files.size(shard);
+    Files.delete(directory.resolve("shard-0.0.index.json"));
+    Files.writeString(shard, "{\"key\":\"c\",\"val", StandardOpenOption.APPEND);
+
+    try (JsonStore<String, String> store = open()) {
+      assertEquals("1", store.get("a"));
+      assertEquals("2", store.get("b"));
+      assertNull(store.get("c"));
+      assertEquals(size, Files.size(shard));
+      store.put("c", "3");
+    }
+    try (JsonStore<String, String> store = open()) {
+      assertEquals("3", store.get("c"));
+    }
+  }
+
+  @Test
+  void compactionKeepsOnlyLiveRecordsInTheNextGeneration() throws IOException {
+    try (JsonStore<String, String> store = open()) {
+      for (int i = 0; i < 100; i++) {
+        store.put("a", "a" + i);
+        store.put("b", "b" + i);
+      }
+      store.put("c", "c");
+      store.remove("b");
+      long before = Files.size(directory.resolve("shard-0.0.jsonl"));
+
+      store.compact();
+      assertFalse(Files.exists(directory.resolve("shard-0.0.jsonl")));
+      assertFalse(Files.exists(directory.resolve("shard-0.0.index.json")));
+      assertTrue(Files.size(directory.resolve("shard-0.1.jsonl")) < before);
+      assertEquals("a99", store.get("a"));
+      assertNull(store.get("b"));
+      assertEquals("c", store.get("c"));
+
+      store.put("d", "d");
+    }
+    try (JsonStore<String, String> store = open()) {
+      assertEquals(Map.of("a", "a99", "c", "c", "d", "d"), store.scan().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+    }
+  }
+
+  @Test
+  void rejectsAManifestWithoutShards() throws IOException {
+    Files.writeString(directory.resolve("store.json"), "{}");
+    IOException failure = assertThrows(IOException.class, this::open);
+    assertTrue(failure.getMessage().contains("store.json"));
+  }
+
+}
@@ -0,0 +1,113 @@
+package com.aaronjyoder.util.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.aaronjyoder.util.json.adapters.RuntimeTypeAdapterFactory;
+import com.aaronjyoder.util.json.moshi.MoshiUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonWriteQueueTest {
+
+  @TempDir
+  Path directory;
+
+  // Jackson refuses to serialize a bean without properties
+  static class Empty {
+
+  }
+
+  // Moshi's adapter for Shape only knows Circle, and reports anything else with a plain IOException
+  interface Shape {
+
+  }
+
+  static class Circle implements Shape {
+
+  }
+
+  static class Square implements Shape {
+
+  }
+
+  @BeforeAll
+  static void registerShapes() {
+    MoshiUtil.register(RuntimeTypeAdapterFactory.of(Shape.class).with(Circle.class));
+  }
+
+  @Test
+  void failedWriteStaysQueuedAndIsRetriedInTheBackground() throws Exception {
+    // A file where the target's parent directory should be makes every attempt fail with an I/O error until it is removed
+    Path blocker = Files.writeString(directory.resolve("blocked"), "not a directory");
+    Path target = blocker.resolve("value.json");
+    try (JsonWriteQueue queue = JsonWriteQueue.of(JsonBackend.GSON, Duration.ofMillis(200), 16, false)) {
+      queue.write(target, String.class, "hello");
+      assertThrows(IOException.class, queue::flush);
+      assertEquals(1, queue.pendingCount());
+
+      // The first retry is due 200 ms after the failure; the deadline only bounds a failing run, as later retries back off up to a minute
+      Files.delete(blocker);
+      long deadline = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+      while (!Files.exists(target) && System.nanoTime() < deadline) {
+        Thread.sleep(20);
+      }
+      assertEquals(0, queue.pendingCount());
+      assertEquals("hello", JsonBackend.GSON.read(target, String.class));
+    }
+  }
+
+  @Test
+  void serializationFailureIsReportedOnceAndDropped() throws Exception {
+    assertPoisonDropped(JsonBackend.JACKSON, Empty.class, new Empty());
+    assertPoisonDropped(JsonBackend.MOSHI, Shape.class, new Square());
+  }
+
+  private <T> void assertPoisonDropped(JsonBackend backend, Class<T> type, T object) throws Exception {
+    Path poison = directory.resolve(backend + "-poison.json");
+    Path fine = directory.resolve(backend + "-fine.json");
+    JsonWriteQueue queue = JsonWriteQueue.of(backend, Duration.ofHours(1), 16, false);
+    queue.write(poison, type, object);
+    queue.write(fine, String.class, "fine");
+
+    IOException failure = assertThrows(IOException.class, queue::flush);
+    assertTrue(failure.getMessage().contains(poison.toString()));
+    assertEquals(0, queue.pendingCount());
+    assertFalse(Files.exists(poison));
+    assertEquals("fine", backend.read(fine, String.class));
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(0, files.filter(file -> file.toString().endsWith(".tmp")).count());
+    }
+
+    queue.flush();
+    queue.close();
+  }
+
+  @Test
+  void closeKeepsFailedWritesUntilTheyAreWritten() throws Exception {
+    Path blocker = Files.writeString(directory.resolve("blocked"), "not a directory");
+    Path target = blocker.resolve("value.json");
+    JsonWriteQueue queue = JsonWriteQueue.of(JsonBackend.GSON, Duration.ofHours(1), 16, false);
+    queue.write(target, String.class, "hello");
+
+    assertThrows(IOException.class, queue::close);
+    assertThrows(IOException.class, queue::close);
+    assertEquals(1, queue.pendingCount());
+    assertThrows(IllegalStateException.class, () -> queue.write(directory.resolve("late.json"), String.class, "late"));
+
+    Files.delete(blocker);
+    queue.close();
+    assertEquals(0, queue.pendingCount());
+    assertEquals("hello", JsonBackend.GSON.read(target, String.class));
+    queue.close();
+  }
+
+}
@@ -0,0 +1,74 @@
+package com.aaronjyoder.util.json.adapters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.awt.Color;
+import java.awt.Point;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class JacksonAdapterModuleTest {
+
+  private static final Instant INSTANT = Instant.ofEpochSecond(1577934245, 123456789);
+
+  // Registered like JacksonUtil registers them
+  private static final JsonMapper MAPPER = JsonMapper.builder().addModule(new JavaTimeModule()).addModule(new JacksonAdapterModule()).build();
+
+  // What JacksonUtil.registerIfBaseType turns on
+  private static final JsonMapper TYPED_MAPPER = JsonMapper.builder()
+      .addModule(new JavaTimeModule())
+      .addModule(new JacksonAdapterModule())
+      .activateDefaultTypingAsProperty(BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build(), DefaultTyping.NON_FINAL, "type")
+      .build();
+
+  public static class Values {
+
+    public Point point;
+    public Color color;
+    public Object anyPoint;
+    public Object anyColor;
+    public Object anyInstant;
+    public Object anyUuid;
+
+  }
+
+  @Test
+  void instantIsWrittenAsSecondsAndNanos() throws IOException {
+    String json = MAPPER.writeValueAsString(INSTANT);
+    assertEquals("{\"seconds\":1577934245,\"nanos\":123456789}", json);
+    assertEquals(INSTANT, MAPPER.readValue(json, Instant.class));
+  }
+
+  @Test
+  void instantReadsWhatJavaTimeModuleWrote() throws IOException {
+    assertEquals(INSTANT, MAPPER.readValue("\"2020-01-02T03:04:05.123456789Z\"", Instant.class));
+    assertEquals(INSTANT, MAPPER.readValue("1577934245.123456789", Instant.class));
+    assertEquals(Instant.ofEpochSecond(1577934245), MAPPER.readValue("1577934245", Instant.class));
+  }
+
+  @Test
+  void roundTripsUnderDefaultTyping() throws IOException {
+    Values values = new Values();
+    values.point = new Point(3, -4);
+    values.color = new Color(0x80, 0x40, 0x20);
+    values.anyPoint = new Point(5, 6);
+    values.anyColor = Color.RED;
+    values.anyInstant = INSTANT;
+    values.anyUuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+    Values read = TYPED_MAPPER.readValue(TYPED_MAPPER.writeValueAsString(values), Values.class);
+    assertEquals(values.point, read.point);
+    assertEquals(values.color, read.color);
+    assertEquals(values.anyPoint, read.anyPoint);
+    assertEquals(values.anyColor, read.anyColor);
+    assertEquals(values.anyInstant, read.anyInstant);
+    assertEquals(values.anyUuid, read.anyUuid);
+  }
+
+}